@@ -0,0 +1,84 @@
+package net.escosoft.mysqlwrapper;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.escosoft.mysqlwrapper.util.Preconditions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A binary payload of known length that can be passed as a {@link Statement} replacement.
+ * It's bound through {@link java.sql.PreparedStatement#setBinaryStream(int, InputStream, long)},
+ * so large BLOB values are streamed to the driver instead of being materialized as a byte array.
+ * The underlying stream is closed once the statement has been executed.
+ * <p>
+ * Connector/J only sends the stream to the server in chunks with server-side prepared statements.
+ * With its default client-side ones the whole stream is copied into the query packet in heap, so add
+ * {@code useServerPrepStmts=true} to the database {@link Database.Options} for streaming to pay off.
+ */
+@Getter(AccessLevel.PROTECTED)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class BinaryStream implements AutoCloseable {
+
+    private final InputStream stream;
+    private final long length;
+
+    @Override
+    public void close() {
+        try {
+            this.stream.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Error while trying to close a binary stream: ", e);
+        }
+    }
+
+    /**
+     * Creates a binary stream out of an input stream.
+     *
+     * @param stream the input stream to read from.
+     * @param length the exact amount of bytes to read.
+     * @return a new binary stream instance.
+     */
+    public static BinaryStream of(InputStream stream, long length) {
+        Preconditions.checkNonNull(stream, "Stream can't be null.");
+        if (length < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        return new BinaryStream(stream, length);
+    }
+
+    /**
+     * Creates a binary stream out of a readable channel.
+     *
+     * @param channel the channel to read from.
+     * @param length  the exact amount of bytes to read.
+     * @return a new binary stream instance.
+     */
+    public static BinaryStream of(ReadableByteChannel channel, long length) {
+        Preconditions.checkNonNull(channel, "Channel can't be null.");
+        return of(Channels.newInputStream(channel), length);
+    }
+
+    /**
+     * Creates a binary stream out of a whole file.
+     *
+     * @param path the file path.
+     * @return a new binary stream instance.
+     */
+    public static BinaryStream of(Path path) {
+        Preconditions.checkNonNull(path, "Path can't be null.");
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            return of(channel, channel.size());
+        } catch (IOException e) {
+            throw new RuntimeException("Error while trying to open file '" + path + "': ", e);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package net.escosoft.mysqlwrapper;
+
+import net.escosoft.mysqlwrapper.table.Table;
+import net.escosoft.mysqlwrapper.table.TableColumn;
+import net.escosoft.mysqlwrapper.util.Preconditions;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Runs a mass UPDATE or DELETE as a sequence of small chunks, each one committed on its own, so locks are
+ * held and undo log grows only for the duration of a chunk instead of the whole mutation. Chunks either
+ * append {@code LIMIT n} to the statement and repeat it until it affects fewer rows, or restrict it to
+ * consecutive ranges of a key column, usually the primary key. Between chunks the mutation can sleep in
+ * proportion to the time the last chunk took, and wait while a replica lags behind.
+ * <p>
+ * If the database has a {@link ConcurrencyLimiter}, each chunk runs under a permit like bulk work does, so
+ * its duration doesn't shrink the limit, and a rejected chunk is retried with backoff instead of failing.
+ */
+public final class ChunkedMutation {
+
+    private static final long LAG_POLL_MILLIS = 500L;
+    private static final long MIN_BACKOFF_MILLIS = 50L;
+
+    private final Statement statement;
+    private final TableColumn key;
+
+    private int chunkSize = 1000;
+    private double niceRatio;
+    private LongSupplier lagProbe;
+    private long maxLagMillis;
+    private Consumer<MutationProgress> progressListener;
+    private Object after;
+
+    private final Object pauseLock = new Object();
+    private boolean started;
+    private volatile boolean cancelled;
+    private volatile Statement running;
+
+    private ChunkedMutation(Statement statement, TableColumn key) {
+        this.statement = statement;
+        this.key = key;
+    }
+
+    /**
+     * Sets the amount of rows, or keys in key range mode, covered by each chunk.
+     *
+     * @param chunkSize the chunk size.
+     */
+    public ChunkedMutation chunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive.");
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Sleeps after every chunk for a multiple of the time it took, so the mutation backs off as the
+     * server slows down. A ratio of 1 keeps the server busy with the mutation at most half the time.
+     *
+     * @param niceRatio the ratio of the last chunk time to sleep for, or 0 to not sleep.
+     */
+    public ChunkedMutation niceRatio(double niceRatio) {
+        if (niceRatio < 0) {
+            throw new IllegalArgumentException("Nice ratio can't be negative.");
+        }
+        this.niceRatio = niceRatio;
+        return this;
+    }
+
+    /**
+     * Waits before every chunk until a replication lag probe reports a lag within a maximum.
+     *
+     * @param lagProbe     the probe returning the current lag in milliseconds, such as {@link #replicaLag(Database)}.
+     * @param maxLagMillis the maximum lag in milliseconds.
+     */
+    public ChunkedMutation maxLag(LongSupplier lagProbe, long maxLagMillis) {
+        Preconditions.checkNonNull(lagProbe, "Lag probe can't be null.");
+        if (maxLagMillis < 0) {
+            throw new IllegalArgumentException("Maximum lag can't be negative.");
+        }
+        this.lagProbe = lagProbe;
+        this.maxLagMillis = maxLagMillis;
+        return this;
+    }
+
+    /**
+     * Sets a listener notified after every chunk.
+     *
+     * @param listener the progress listener.
+     */
+    public ChunkedMutation onProgress(Consumer<MutationProgress> listener) {
+        this.progressListener = Preconditions.checkNonNull(listener, "Listener can't be null.");
+        return this;
+    }
+
+    /**
+     * Starts a key range mutation after a key, to resume one interrupted after reporting it as {@link MutationProgress#getLastKey()}.
+     *
+     * @param key the exclusive lower bound.
+     */
+    public ChunkedMutation after(Object key) {
+        if (this.key == null) {
+            throw new IllegalStateException("Only key range mutations can be resumed.");
+        }
+        this.after = Preconditions.checkNonNull(key, "Key can't be null.");
+        return this;
+    }
+
+    /**
+     * Runs the mutation in the background until no rows are left or it's cancelled. Cancelling the returned
+     * future stops it after aborting the running chunk; chunks already run stay committed. A mutation
+     * can only be executed once.
+     *
+     * @return a future completed with the total amount of affected rows.
+     */
+    public CompletableFuture<Long> execute() {
+        if (this.started) {
+            throw new IllegalStateException("Mutation was already executed.");
+        }
+        if (this.statement.isRouted()) {
+            throw new IllegalStateException("Chunked mutations can't be routed across shards.");
+        }
+        Database database = this.statement.database();
+        this.started = true;
+        CompletableFuture<Long> future = CompletableFuture.supplyAsync(() -> this.run(database), Database.getExecutorService());
+        future.whenComplete((result, e) -> {
+            if (future.isCancelled()) {
+                this.cancel();
+            }
+        });
+        return future;
+    }
+
+    private long run(Database database) {
+        boolean hasWhere = this.statement.hasWhere();
+        long start = System.nanoTime();
+        long chunks = 0, affectedRows = 0;
+        Object lower = this.after;
+        boolean done = false;
+        while (!done) {
+            this.awaitLag();
+            this.checkCancelled();
+
+            Statement chunk = this.statement.copy(database);
+            Object upper = null;
+            if (this.key == null) {
+                chunk.of(" LIMIT " + this.chunkSize);
+            } else {
+                Object from = lower;
+                upper = this.admitted(database, () -> this.upperBound(database, from));
+                String name = this.key.getName();
+                if (lower != null || upper != null) {
+                    chunk.of(hasWhere ? " AND" : " WHERE");
+                }
+                if (lower != null) {
+                    chunk.of(" " + name + " > ?").bind(this.key, lower);
+                }
+                if (upper != null) {
+                    chunk.of((lower != null ? " AND " : " ") + name + " <= ?").bind(this.key, upper);
+                }
+            }
+
+            long chunkStart = System.nanoTime();
+            this.running = chunk;
+            int affected;
+            try {
+                this.checkCancelled();
+                affected = this.admitted(database, chunk::executeUpdate);
+            } finally {
+                this.running = null;
+            }
+            long chunkNanos = System.nanoTime() - chunkStart;
+
+            chunks++;
+            affectedRows += affected;
+            done = this.key == null ? affected < this.chunkSize : upper == null;
+            lower = upper;
+            if (this.progressListener != null) {
+                this.progressListener.accept(new MutationProgress(chunks, affectedRows, affected,
+                        chunkNanos / 1_000_000L, (System.nanoTime() - start) / 1_000_000L, upper));
+            }
+            if (!done && this.niceRatio > 0) {
+                this.pause((long) (chunkNanos / 1_000_000L * this.niceRatio));
+            }
+        }
+        return affectedRows;
+    }
+
+    /**
+     * Finds the key closing the next chunk, or null if fewer keys than the chunk size are left.
+     */
+    private Object upperBound(Database database, Object lower) {
+        Table table = this.statement.getTable();
+        if (table == null) {
+            throw new IllegalStateException("Key range mutations must be built with deleteFrom() or update().");
+        }
+        String name = this.key.getName();
+        Statement query = Statement.create("SELECT " + name + " FROM " + table.getName()
+                + (lower != null ? " WHERE " + name + " > ?" : "")
+                + " ORDER BY " + name + " LIMIT 1 OFFSET " + (this.chunkSize - 1)).using(database);
+        if (lower != null) {
+            query.bind(this.key, lower);
+        }
+        Object[] upper = new Object[1];
+        query.executeQuery(result -> {
+            try {
+                ResultSet resultSet = result.getResultSet();
+                if (resultSet.next()) {
+                    upper[0] = resultSet.getObject(1);
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error while trying to find the next key range: ", e);
+            }
+        });
+        return upper[0];
+    }
+
+    /**
+     * Runs work under an untimed permit of the database limiter, waiting with exponential backoff
+     * while the limit is reached.
+     */
+    private <T> T admitted(Database database, Supplier<T> work) {
+        ConcurrencyLimiter limiter = database.getConcurrencyLimiter();
+        if (limiter == null) {
+            return work.get();
+        }
+        long backoff = MIN_BACKOFF_MILLIS;
+        while (true) {
+            try {
+                limiter.acquire();
+                break;
+            } catch (LimitExceededException e) {
+                this.pause(backoff);
+                backoff = Math.min(backoff * 2, LAG_POLL_MILLIS);
+            }
+        }
+        ConcurrencyLimiter.Permit permit = new ConcurrencyLimiter.Permit(false);
+        List<T> result = new ArrayList<>(1);
+        try {
+            limiter.runAdmitted(permit, () -> result.add(work.get()));
+        } catch (Throwable t) {
+            permit.record(-1, t);
+            throw t;
+        } finally {
+            limiter.release(permit);
+        }
+        return result.get(0);
+    }
+
+    private void awaitLag() {
+        if (this.lagProbe == null) {
+            return;
+        }
+        while (this.lagProbe.getAsLong() > this.maxLagMillis) {
+            this.pause(LAG_POLL_MILLIS);
+        }
+    }
+
+    private void pause(long millis) {
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        synchronized (this.pauseLock) {
+            long remaining;
+            while (!this.cancelled && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    this.pauseLock.wait(Math.max(1, remaining / 1_000_000L));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    this.cancelled = true;
+                }
+            }
+        }
+        this.checkCancelled();
+    }
+
+    private void cancel() {
+        this.cancelled = true;
+        synchronized (this.pauseLock) {
+            this.pauseLock.notifyAll();
+        }
+        Statement chunk = this.running;
+        if (chunk != null) {
+            chunk.cancel();
+        }
+    }
+
+    private void checkCancelled() {
+        if (this.cancelled) {
+            throw new CancellationException("Mutation was cancelled.");
+        }
+    }
+
+    /**
+     * Creates a mutation repeating a statement with {@code LIMIT n} until it affects fewer rows than the chunk size.
+     * The statement's condition must stop matching rows once they're mutated, which is always the case for
+     * deletes, otherwise it never ends.
+     *
+     * @param statement the UPDATE or DELETE statement, without LIMIT.
+     * @return a new chunked mutation instance.
+     */
+    public static ChunkedMutation limit(Statement statement) {
+        Preconditions.checkNonNull(statement, "Statement can't be null.");
+        return new ChunkedMutation(statement, null);
+    }
+
+    /**
+     * Creates a mutation restricting a statement to consecutive ranges of a key column, walking the key
+     * index to find where each range ends. The range condition is appended with AND to an existing
+     * WHERE clause, so conditions with OR should be wrapped in parentheses to keep them chunked.
+     *
+     * @param statement the UPDATE or DELETE statement, built with {@link Statement#update(Table)} or {@link Statement#deleteFrom(Table)}.
+     * @param key       the key column, usually the primary key.
+     * @return a new chunked mutation instance.
+     */
+    public static ChunkedMutation ranges(Statement statement, TableColumn key) {
+        Preconditions.checkNonNull(statement, "Statement can't be null.");
+        Preconditions.checkNonNull(key, "Key can't be null.");
+        return new ChunkedMutation(statement, key);
+    }
+
+    /**
+     * Creates a lag probe reading how far behind its source a replica is, through SHOW REPLICA STATUS
+     * (or SHOW SLAVE STATUS before MySQL 8.0.22). A replica whose replication is stopped reports an endless lag.
+     *
+     * @param replica the replica database.
+     * @return the lag probe, returning the lag in milliseconds.
+     */
+    public static LongSupplier replicaLag(Database replica) {
+        Preconditions.checkNonNull(replica, "Replica can't be null.");
+        return () -> {
+            try (Connection connection = replica.connection()) {
+                try {
+                    return readLag(connection, "SHOW REPLICA STATUS", "Seconds_Behind_Source");
+                } catch (SQLException e) {
+                    return readLag(connection, "SHOW SLAVE STATUS", "Seconds_Behind_Master");
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error while trying to read the replication lag: ", e);
+            }
+        };
+    }
+
+    private static long readLag(Connection connection, String query, String column) throws SQLException {
+        try (java.sql.Statement statement = connection.createStatement();
+             ResultSet status = statement.executeQuery(query)) {
+            if (!status.next()) {
+                return 0L;
+            }
+            long seconds = status.getLong(column);
+            return status.wasNull() ? Long.MAX_VALUE : seconds * 1000L;
+        }
+    }
+}
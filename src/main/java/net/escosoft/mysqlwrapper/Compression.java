@@ -0,0 +1,42 @@
+package net.escosoft.mysqlwrapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Stream compression applied to files written by {@link TableExporter}.
+ */
+public enum Compression {
+    NONE,
+    GZIP,
+    DEFLATE;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    OutputStream wrap(OutputStream stream) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPOutputStream(stream, BUFFER_SIZE);
+            case DEFLATE:
+                return new DeflaterOutputStream(stream);
+            default:
+                return stream;
+        }
+    }
+
+    InputStream wrap(InputStream stream) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPInputStream(stream, BUFFER_SIZE);
+            case DEFLATE:
+                return new InflaterInputStream(stream);
+            default:
+                return stream;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package net.escosoft.mysqlwrapper;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adaptive bound on the amount of work a {@link Database} runs at once, so an overloaded server makes
+ * callers fail fast with {@link LimitExceededException} instead of all of them waiting for the connection
+ * timeout. The limit follows AIMD: it grows by one for every limit's worth of operations completing within
+ * the RTT threshold while the limit is in use, and is multiplied by the backoff ratio whenever an operation
+ * takes longer, times out, or can't get a connection in time.
+ * <p>
+ * Synchronous work holds a permit from {@link Database#connection()} until the connection is closed,
+ * asynchronous work from its submission until its future completes. An operation's RTT is the longest
+ * statement execute call made while holding the permit, so time spent reading a streamed result or between
+ * statements doesn't count. {@link Priority#BULK} work only adapts the limit when it fails.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ConcurrencyLimiter {
+
+    private final ThreadLocal<Permit> admitted = new ThreadLocal<>();
+    private final AtomicLong rejections = new AtomicLong();
+
+    private int minLimit = 1;
+    private int maxLimit = 200;
+    private double backoffRatio = 0.9;
+    private long rttThresholdNanos = 200_000_000L;
+
+    private double limit = 20;
+    private int inFlight;
+
+    /**
+     * Sets the limit to start with.
+     *
+     * @param limit the initial limit.
+     */
+    public ConcurrencyLimiter initialLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Initial limit must be positive.");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Sets the bounds the limit adapts within.
+     *
+     * @param minLimit the minimum limit.
+     * @param maxLimit the maximum limit.
+     */
+    public ConcurrencyLimiter bounds(int minLimit, int maxLimit) {
+        if (minLimit < 1) {
+            throw new IllegalArgumentException("Minimum limit must be positive.");
+        }
+        if (maxLimit < minLimit) {
+            throw new IllegalArgumentException("Maximum limit can't be lower than the minimum one.");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        return this;
+    }
+
+    /**
+     * Sets the ratio the limit is multiplied by on overload.
+     *
+     * @param backoffRatio the ratio, between 0.5 and 1 exclusive.
+     */
+    public ConcurrencyLimiter backoffRatio(double backoffRatio) {
+        if (backoffRatio < 0.5 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0.5 and 1 exclusive.");
+        }
+        this.backoffRatio = backoffRatio;
+        return this;
+    }
+
+    /**
+     * Sets the round-trip time above which an operation is considered a sign of overload.
+     *
+     * @param millis the time in milliseconds.
+     */
+    public ConcurrencyLimiter rttThreshold(long millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("RTT threshold must be positive.");
+        }
+        this.rttThresholdNanos = millis * 1_000_000L;
+        return this;
+    }
+
+    /**
+     * Gets the current limit.
+     *
+     * @return the current limit.
+     */
+    public synchronized int getLimit() {
+        return (int) this.limit;
+    }
+
+    /**
+     * Gets the amount of operations currently holding a permit.
+     *
+     * @return the amount of operations in flight.
+     */
+    public synchronized int getInFlight() {
+        return this.inFlight;
+    }
+
+    /**
+     * Gets the amount of operations rejected since creation.
+     *
+     * @return the amount of rejections.
+     */
+    public long getRejections() {
+        return this.rejections.get();
+    }
+
+    /**
+     * Takes a permit, rejecting the operation if the limit is reached.
+     */
+    void acquire() {
+        synchronized (this) {
+            if (this.inFlight < (int) this.limit) {
+                this.inFlight++;
+                return;
+            }
+        }
+        this.rejections.incrementAndGet();
+        throw new LimitExceededException(this.getLimit());
+    }
+
+    /**
+     * Returns a permit, adapting the limit to how the operation went.
+     *
+     * @param rttNanos the operation round-trip time, or -1 if it never ran.
+     * @param failure  the operation failure, or null if it succeeded.
+     */
+    synchronized void release(long rttNanos, Throwable failure) {
+        boolean saturated = this.inFlight * 2 >= this.limit;
+        this.inFlight--;
+        if (isOverload(failure) || rttNanos > this.rttThresholdNanos) {
+            this.limit = Math.max(this.minLimit, this.limit * this.backoffRatio);
+        } else if (rttNanos >= 0 && saturated) {
+            this.limit = Math.min(this.maxLimit, this.limit + 1 / this.limit);
+        }
+    }
+
+    /**
+     * Returns a permit, adapting the limit to the statements executed under it.
+     *
+     * @param permit the permit.
+     */
+    void release(Permit permit) {
+        long rttNanos;
+        Throwable failure;
+        synchronized (permit) {
+            rttNanos = permit.rttNanos;
+            failure = permit.failure;
+        }
+        this.release(rttNanos, failure);
+    }
+
+    /**
+     * Gets the permit held by the work the current thread is running, if any.
+     */
+    Permit admitted() {
+        return this.admitted.get();
+    }
+
+    /**
+     * Runs work submitted asynchronously, whose permit was taken at submission.
+     */
+    void runAdmitted(Permit permit, Runnable runnable) {
+        this.admitted.set(permit);
+        try {
+            runnable.run();
+        } finally {
+            this.admitted.remove();
+        }
+    }
+
+    private static boolean isOverload(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTimeoutException || cause instanceof SQLTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Round-trip times and failures of the statements executed under a permit.
+     */
+    static final class Permit {
+
+        private final boolean timed;
+        private long rttNanos = -1;
+        private Throwable failure;
+
+        /**
+         * @param timed whether execute times count towards the RTT, or only failures are recorded.
+         */
+        Permit(boolean timed) {
+            this.timed = timed;
+        }
+
+        /**
+         * Records a statement execute call.
+         *
+         * @param rttNanos the call duration.
+         * @param failure  the call failure, or null if it succeeded.
+         */
+        synchronized void record(long rttNanos, Throwable failure) {
+            if (this.timed) {
+                this.rttNanos = Math.max(this.rttNanos, rttNanos);
+            }
+            // An overload failure is kept over any other one, since it's what adapts the limit
+            if (failure != null && (this.failure == null || isOverload(failure))) {
+                this.failure = failure;
+            }
+        }
+    }
+
+    /**
+     * Creates a new limiter with an initial limit of 20, bounds of 1 and 200, a backoff ratio of 0.9
+     * and an RTT threshold of 200 milliseconds.
+     *
+     * @return a new concurrency limiter instance.
+     */
+    public static ConcurrencyLimiter create() {
+        return new ConcurrencyLimiter();
+    }
+}
@@ -0,0 +1,241 @@
+package net.escosoft.mysqlwrapper;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import net.escosoft.mysqlwrapper.util.Histogram;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the telemetry of a {@link Database} pool. Acquire and usage times come from a Hikari metrics
+ * tracker wrapping the user's one, pool counts from the pool MXBean. With leak detection enabled,
+ * connections handed out are wrapped to remember the last SQL prepared on them until they're closed,
+ * and a monitor thread reports the ones held longer than the threshold.
+ */
+final class ConnectionMonitor {
+
+    private final Histogram acquireNanos = new Histogram();
+    private final Histogram usageMillis = new Histogram();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+
+    private final long leakThresholdNanos;
+    private final List<PoolListener> listeners;
+    private HikariDataSource dataSource;
+    private ScheduledExecutorService executor;
+
+    ConnectionMonitor(long leakThresholdMillis, List<PoolListener> listeners) {
+        this.leakThresholdNanos = leakThresholdMillis * 1_000_000L;
+        this.listeners = listeners;
+    }
+
+    /**
+     * Creates a metrics tracker factory recording into this monitor, then into the user's factory if any.
+     *
+     * @param delegate the user's factory, or null.
+     * @return the tracker factory to install in the pool.
+     */
+    MetricsTrackerFactory trackerFactory(MetricsTrackerFactory delegate) {
+        return (poolName, poolStats) -> {
+            IMetricsTracker tracker = delegate != null ? delegate.create(poolName, poolStats) : new IMetricsTracker() {
+            };
+            return new IMetricsTracker() {
+                @Override
+                public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                    tracker.recordConnectionCreatedMillis(connectionCreatedMillis);
+                }
+
+                @Override
+                public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                    ConnectionMonitor.this.acquireNanos.record(elapsedAcquiredNanos);
+                    tracker.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+                }
+
+                @Override
+                public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                    ConnectionMonitor.this.usageMillis.record(elapsedBorrowedMillis);
+                    tracker.recordConnectionUsageMillis(elapsedBorrowedMillis);
+                }
+
+                @Override
+                public void recordConnectionTimeout() {
+                    ConnectionMonitor.this.timeouts.incrementAndGet();
+                    tracker.recordConnectionTimeout();
+                }
+
+                @Override
+                public void close() {
+                    tracker.close();
+                }
+            };
+        };
+    }
+
+    /**
+     * Attaches the pool created with this monitor's tracker factory, and starts pushing telemetry
+     * to the listeners if there are any.
+     *
+     * @param dataSource     the pool.
+     * @param intervalMillis the time between pushes in milliseconds.
+     */
+    void start(HikariDataSource dataSource, long intervalMillis) {
+        this.dataSource = dataSource;
+        if (this.listeners.isEmpty()) {
+            return;
+        }
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mysql-wrapper-monitor-" + this.dataSource.getPoolName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleAtFixedRate(this::scan, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Wraps a connection to track it while held, to record the execute calls of its statements into a
+     * concurrency permit, and to return the permit once closed.
+     *
+     * @param connection the pooled connection.
+     * @param start      the {@link System#nanoTime()} the connection was requested at.
+     * @param limiter    the limiter to return the permit to once closed, or null if the permit isn't owned by the connection.
+     * @param permit     the permit to record execute calls into, or null.
+     * @return the wrapped connection, or the same one if there's nothing to track.
+     */
+    Connection wrap(Connection connection, long start, ConcurrencyLimiter limiter, ConcurrencyLimiter.Permit permit) {
+        if (permit == null && this.leakThresholdNanos <= 0) {
+            return connection;
+        }
+        Lease lease = this.leakThresholdNanos > 0 ? new Lease(start, Thread.currentThread().getName()) : null;
+        if (lease != null) {
+            this.leases.add(lease);
+        }
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ConnectionMonitor.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            String name = method.getName();
+            boolean prepared = name.equals("prepareStatement") || name.equals("prepareCall");
+            boolean statement = prepared || name.equals("createStatement");
+            if (lease != null && prepared) {
+                lease.sql = (String) args[0];
+            } else if (name.equals("close") && closed.compareAndSet(false, true)) {
+                if (lease != null) {
+                    this.leases.remove(lease);
+                }
+                if (limiter != null) {
+                    limiter.release(permit);
+                }
+            }
+            Object result;
+            try {
+                result = method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            return statement && permit != null ? timed(result, method.getReturnType(), permit) : result;
+        });
+    }
+
+    /**
+     * Wraps a statement to record the duration and failure of every execute call into a permit. Only the call
+     * itself is timed, so reading a streamed result afterwards doesn't count as round-trip time.
+     */
+    private static Object timed(Object statement, Class<?> type, ConcurrencyLimiter.Permit permit) {
+        return Proxy.newProxyInstance(ConnectionMonitor.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                try {
+                    return method.invoke(statement, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+            long start = System.nanoTime();
+            try {
+                Object result = method.invoke(statement, args);
+                permit.record(System.nanoTime() - start, null);
+                return result;
+            } catch (InvocationTargetException e) {
+                permit.record(System.nanoTime() - start, e.getCause());
+                throw e.getCause();
+            }
+        });
+    }
+
+    /**
+     * Takes a snapshot of the pool.
+     *
+     * @return the pool statistics.
+     */
+    PoolStatistics statistics() {
+        HikariPoolMXBean pool = this.dataSource.getHikariPoolMXBean();
+        long now = System.nanoTime();
+        List<HeldConnection> held = new ArrayList<>(this.leases.size());
+        for (Lease lease : this.leases) {
+            held.add(lease.toHeldConnection(now));
+        }
+        return new PoolStatistics(
+                pool == null ? 0 : pool.getActiveConnections(),
+                pool == null ? 0 : pool.getIdleConnections(),
+                pool == null ? 0 : pool.getTotalConnections(),
+                this.dataSource.getMaximumPoolSize(),
+                pool == null ? 0 : pool.getThreadsAwaitingConnection(),
+                this.acquireNanos.copy(),
+                this.usageMillis.copy(),
+                this.timeouts.get(),
+                Collections.unmodifiableList(held)
+        );
+    }
+
+    private void scan() {
+        try {
+            long now = System.nanoTime();
+            for (Lease lease : this.leases) {
+                if (!lease.reported && now - lease.acquiredAt > this.leakThresholdNanos) {
+                    lease.reported = true;
+                    HeldConnection connection = lease.toHeldConnection(now);
+                    this.listeners.forEach(listener -> listener.onLeak(connection));
+                }
+            }
+            PoolStatistics statistics = this.statistics();
+            this.listeners.forEach(listener -> listener.onStatistics(statistics));
+        } catch (RuntimeException e) {
+            // A failing listener mustn't stop the monitor from running again
+            e.printStackTrace();
+        }
+    }
+
+    private static final class Lease {
+
+        private final long acquiredAt;
+        private final String threadName;
+        private volatile String sql;
+        private volatile boolean reported;
+
+        private Lease(long acquiredAt, String threadName) {
+            this.acquiredAt = acquiredAt;
+            this.threadName = threadName;
+        }
+
+        private HeldConnection toHeldConnection(long now) {
+            return new HeldConnection(this.sql, this.threadName, (now - this.acquiredAt) / 1_000_000L);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package net.escosoft.mysqlwrapper;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -12,7 +13,11 @@ import net.escosoft.mysqlwrapper.util.Preconditions;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -25,9 +30,26 @@ public final class Database {
     private Options options;
 
     private boolean credentialsSet;
+    private boolean warmUp;
+    private final List<String> hotStatements = new ArrayList<>();
+    private final int[] reservedConnections = new int[Priority.values().length];
+    private long starvationTimeout = 10_000L;
+    @Getter
+    private ConcurrencyLimiter concurrencyLimiter;
+    private MetricsTrackerFactory metricsTrackerFactory;
+    private final List<PoolListener> poolListeners = new ArrayList<>();
+    private long leakDetectionThreshold;
+    private long monitorInterval = 10_000L;
 
     private final HikariConfig config = new HikariConfig();
-    private static HikariDataSource dataSource;
+    private HikariDataSource dataSource;
+    private ConnectionMonitor monitor;
+    @Getter(AccessLevel.PROTECTED)
+    private int queryTimeout;
+    @Getter(AccessLevel.PROTECTED)
+    private Scheduler scheduler;
+
+    private static Database defaultDatabase;
     @Getter(AccessLevel.PROTECTED)
     private static ExecutorService executorService;
 
@@ -189,6 +211,78 @@ public final class Database {
         return this;
     }
 
+    /**
+     * Sets a tracker factory HikariCP reports pool metrics to, such as connection acquire and usage times.
+     *
+     * @param factory the metrics tracker factory.
+     */
+    public Database metricsTrackerFactory(MetricsTrackerFactory factory) {
+        this.metricsTrackerFactory = Preconditions.checkNonNull(factory, "Metrics tracker factory can't be null.");
+        return this;
+    }
+
+    /**
+     * Registers HikariCP's pool configuration and statistics MBeans into the platform MBean server.
+     *
+     * @param registerMbeans whether to register the MBeans.
+     */
+    public Database registerMbeans(boolean registerMbeans) {
+        this.config.setRegisterMbeans(registerMbeans);
+        return this;
+    }
+
+    /**
+     * Enables tracking connections in use, remembering the last SQL prepared on each of them, and reporting
+     * the ones held longer than a threshold to the pool listeners as likely leaks, such as a statement
+     * never executed or closed.
+     *
+     * @param millis the time in milliseconds, or 0 to disable leak detection.
+     */
+    public Database leakDetectionThreshold(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Leak detection threshold can't be negative.");
+        }
+        this.leakDetectionThreshold = millis;
+        return this;
+    }
+
+    /**
+     * Adds a listener the pool statistics and detected leaks are pushed to once per monitor interval.
+     *
+     * @param listener the pool listener.
+     */
+    public Database poolListener(PoolListener listener) {
+        this.poolListeners.add(Preconditions.checkNonNull(listener, "Listener can't be null."));
+        return this;
+    }
+
+    /**
+     * Sets how often pool statistics are pushed to the listeners and held connections are checked for leaks.
+     *
+     * @param millis the time in milliseconds.
+     */
+    public Database monitorInterval(long millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("Monitor interval must be positive.");
+        }
+        this.monitorInterval = millis;
+        return this;
+    }
+
+    /**
+     * Sets a default timeout for every {@link Statement} execution. Statements exceeding it are
+     * cancelled on the server side. Can be overridden per statement with {@link Statement#timeout(int)}.
+     *
+     * @param seconds the time in seconds, or 0 for no timeout.
+     */
+    public Database queryTimeout(int seconds) {
+        if (seconds < 0) {
+            throw new IllegalArgumentException("Query timeout can't be negative.");
+        }
+        this.queryTimeout = seconds;
+        return this;
+    }
+
     /**
      * Sets a particular {@link ExecutorService} implementation that will be used for running
      * asynchronous operations on {@link Statement}.
@@ -201,11 +295,103 @@ public final class Database {
         return this;
     }
 
+    /**
+     * Reserves an amount of pool connections that lower priority asynchronous statements can't use,
+     * so a heavy batch job can't queue up interactive ones.
+     *
+     * @param priority the priority class to reserve connections for.
+     * @param amount   the amount of connections to reserve.
+     */
+    public Database reserveConnections(Priority priority, int amount) {
+        Preconditions.checkNonNull(priority, "Priority can't be null.");
+        if (priority == Priority.BULK) {
+            throw new IllegalArgumentException("Connections can't be reserved for the lowest priority.");
+        }
+        if (amount < 0) {
+            throw new IllegalArgumentException("Amount can't be negative.");
+        }
+        this.reservedConnections[priority.ordinal()] = amount;
+        return this;
+    }
+
+    /**
+     * Sets the time a queued asynchronous statement may wait before being promoted one priority class,
+     * preventing lower classes from starving.
+     *
+     * @param millis the time in milliseconds, or 0 to disable promotion.
+     */
+    public Database starvationTimeout(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Starvation timeout can't be negative.");
+        }
+        this.starvationTimeout = millis;
+        return this;
+    }
+
+    /**
+     * Puts an adaptive concurrency limit in front of the pool, so once the database is overloaded connections
+     * and asynchronous statements are rejected right away with {@link LimitExceededException} instead of
+     * waiting for the connection timeout. Its limit, in-flight and rejection counts can be read as metrics
+     * through {@link #getConcurrencyLimiter()}.
+     *
+     * @param limiter the concurrency limiter.
+     */
+    public Database concurrencyLimiter(ConcurrencyLimiter limiter) {
+        this.concurrencyLimiter = Preconditions.checkNonNull(limiter, "Concurrency limiter can't be null.");
+        return this;
+    }
+
+    /**
+     * Makes {@link #connect()} warm up the pool before returning, opening the minimum amount of idle
+     * connections in parallel, validating them, and pre-preparing every hot statement on each of them.
+     *
+     * @param warmUp whether to warm up the pool on connect.
+     */
+    public Database warmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+        return this;
+    }
+
+    /**
+     * Registers frequently used statement templates to be prepared on every pooled connection during
+     * warm-up. Enables driver-side prepared statement caching so they're reused on first execution.
+     *
+     * @param statements the raw statement strings.
+     */
+    public Database hotStatements(String... statements) {
+        Preconditions.checkNonNull(statements, "Statements can't be null.");
+        for (String statement : statements) {
+            this.hotStatements.add(Preconditions.checkNonNull(statement, "Statement can't be null."));
+        }
+        this.warmUp = true;
+        return this;
+    }
+
     /**
      * Creates a new database connection using credentials set.
+     * The first database connected becomes the default one used by the static methods and by statements
+     * not bound to a particular database through {@link Statement#using(Database)}.
+     * If warm-up is enabled, this blocks until the pool is warm.
      */
     public void connect() {
-        if (dataSource != null) {
+        try {
+            this.connectAsync().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a new database connection using credentials set, warming up the pool asynchronously
+     * if enabled. If warm-up fails, the pool is closed again before the future completes.
+     *
+     * @return a future completed once the pool is ready to serve statements.
+     */
+    public CompletableFuture<Void> connectAsync() {
+        if (this.dataSource != null) {
             throw new IllegalStateException("Database is already connected.");
         }
         if (!this.credentialsSet) {
@@ -220,20 +406,163 @@ public final class Database {
         this.config.setJdbcUrl(url);
         this.config.setUsername(this.username);
         this.config.setPassword(this.password);
-        dataSource = new HikariDataSource(this.config);
+        // Driver properties are only known to apply to the MySQL driver, not to arbitrary data source classes
+        if (!this.hotStatements.isEmpty() && this.config.getDataSourceClassName() == null) {
+            this.config.getDataSourceProperties().putIfAbsent("cachePrepStmts", "true");
+            this.config.getDataSourceProperties().putIfAbsent("useServerPrepStmts", "true");
+        }
+        this.monitor = new ConnectionMonitor(this.leakDetectionThreshold, new ArrayList<>(this.poolListeners));
+        this.config.setMetricsTrackerFactory(this.monitor.trackerFactory(this.metricsTrackerFactory));
+        this.dataSource = new HikariDataSource(this.config);
+        this.monitor.start(this.dataSource, this.monitorInterval);
+
+        synchronized (Database.class) {
+            if (executorService == null) {
+                executorService = Executors.newCachedThreadPool();
+            }
+            if (defaultDatabase == null) {
+                defaultDatabase = this;
+            }
+        }
+        this.scheduler = new Scheduler(executorService, this.dataSource.getMaximumPoolSize(), this.reservedConnections, this.starvationTimeout, this.concurrencyLimiter);
+
+        if (!this.warmUp) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // A pool that failed to warm up is closed, so the database can be connected again
+        return this.warmUpPool().whenComplete((result, e) -> {
+            if (e != null) {
+                this.disconnect();
+            }
+        });
+    }
+
+    private CompletableFuture<Void> warmUpPool() {
+        int amount = Math.max(this.dataSource.getMinimumIdle(), 1);
+        long validationTimeout = this.dataSource.getValidationTimeout();
+        List<CompletableFuture<Connection>> connections = new ArrayList<>(amount);
+        for (int i = 0; i < amount; i++) {
+            connections.add(CompletableFuture.supplyAsync(() -> this.warmUpConnection(validationTimeout), executorService));
+        }
+        // Connections are held until every one is open, so each template lands on a distinct physical connection
+        return CompletableFuture.allOf(connections.toArray(new CompletableFuture<?>[0])).whenComplete((result, e) -> {
+            for (CompletableFuture<Connection> future : connections) {
+                if (!future.isCompletedExceptionally()) {
+                    closeQuietly(future.join());
+                }
+            }
+        });
+    }
+
+    private Connection warmUpConnection(long validationTimeout) {
+        Connection connection = null;
+        try {
+            connection = this.dataSource.getConnection();
+            if (!connection.isValid((int) Math.max(1, validationTimeout / 1000))) {
+                throw new IllegalStateException("Connection failed validation during warm-up.");
+            }
+            for (String statement : this.hotStatements) {
+                connection.prepareStatement(statement).close();
+            }
+            return connection;
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            throw new RuntimeException("Error while trying to warm up a connection: ", e);
+        } catch (RuntimeException e) {
+            closeQuietly(connection);
+            throw e;
+        }
+    }
 
-        if (executorService == null) {
-            executorService = Executors.newCachedThreadPool();
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
         }
     }
 
     /**
-     * Shutdowns current database connection.
+     * Shutdowns this database connection. If it was the default database, the next one connected takes its place.
+     */
+    public void disconnect() {
+        this.checkConnected();
+        this.monitor.stop();
+        this.dataSource.close();
+        this.dataSource = null;
+        this.monitor = null;
+        this.scheduler = null;
+        synchronized (Database.class) {
+            if (defaultDatabase == this) {
+                defaultDatabase = null;
+            }
+        }
+    }
+
+    /**
+     * Checks whether this database connection is open.
+     *
+     * @return true if connected.
+     */
+    public boolean isConnected() {
+        return this.dataSource != null;
+    }
+
+    /**
+     * Gets a new connection from this database once it's open.
+     *
+     * @return a new database connection handled by HikariCP.
+     * @throws SQLException that will be held in {@link Statement} instances.
+     * @throws LimitExceededException if the concurrency limit is reached.
+     */
+    public Connection connection() throws SQLException {
+        this.checkConnected();
+        ConcurrencyLimiter limiter = this.concurrencyLimiter;
+        ConcurrencyLimiter.Permit permit = null;
+        if (limiter != null) {
+            // Asynchronous work already holds a permit, so its statements are recorded into that one
+            permit = limiter.admitted();
+            if (permit == null) {
+                limiter.acquire();
+                permit = new ConcurrencyLimiter.Permit(true);
+            } else {
+                limiter = null;
+            }
+        }
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = this.dataSource.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            if (permit != null) {
+                permit.record(-1, e);
+            }
+            if (limiter != null) {
+                limiter.release(permit);
+            }
+            throw e;
+        }
+        return this.monitor.wrap(connection, start, limiter, permit);
+    }
+
+    /**
+     * Takes a snapshot of the connection pool, read from HikariCP's pool MXBean and from the acquire
+     * and usage times recorded since connecting.
+     *
+     * @return the pool statistics.
+     */
+    public PoolStatistics getPoolStatistics() {
+        this.checkConnected();
+        return this.monitor.statistics();
+    }
+
+    /**
+     * Shutdowns the default database connection.
      */
     public static void shutdown() {
-        check();
-        dataSource.close();
-        dataSource = null;
+        getDefault().disconnect();
     }
 
     /**
@@ -276,14 +605,26 @@ public final class Database {
     }
 
     /**
-     * Gets a new connection from the database once it's open.
+     * Gets a new connection from the default database once it's open.
      *
      * @return a new database connection handled by HikariCP.
      * @throws SQLException that will be held in {@link Statement} instances.
      */
     public static Connection getConnection() throws SQLException {
-        check();
-        return dataSource.getConnection();
+        return getDefault().connection();
+    }
+
+    /**
+     * Gets the default database, the first one connected.
+     *
+     * @return the default database instance.
+     */
+    public static Database getDefault() {
+        Database database = defaultDatabase;
+        if (database == null) {
+            throw new IllegalStateException("Database is not connected.");
+        }
+        return database;
     }
 
     /**
@@ -296,7 +637,11 @@ public final class Database {
     }
 
     private static void check() {
-        if (dataSource == null) {
+        getDefault();
+    }
+
+    private void checkConnected() {
+        if (this.dataSource == null) {
             throw new IllegalStateException("Database is not connected.");
         }
     }
@@ -0,0 +1,16 @@
+package net.escosoft.mysqlwrapper;
+
+/**
+ * File formats supported by {@link TableExporter} and {@link TableImporter}.
+ */
+public enum ExportFormat {
+    /**
+     * RFC 4180 comma separated values with a header line. Nulls are written as {@code \N}
+     * and binary values as hexadecimal strings.
+     */
+    CSV,
+    /**
+     * Compact binary rows encoded per column type, preceded by a schema header.
+     */
+    BINARY;
+}
@@ -0,0 +1,28 @@
+package net.escosoft.mysqlwrapper;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A pool connection currently in use, as seen when a {@link PoolStatistics} snapshot was taken.
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class HeldConnection {
+
+    /**
+     * The last SQL prepared on the connection, or null if none was.
+     */
+    private final String sql;
+    /**
+     * The name of the thread that acquired the connection.
+     */
+    private final String threadName;
+    /**
+     * The time the connection has been in use, in milliseconds.
+     */
+    private final long heldMillis;
+}
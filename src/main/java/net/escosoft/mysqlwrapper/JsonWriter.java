@@ -0,0 +1,399 @@
+package net.escosoft.mysqlwrapper;
+
+import net.escosoft.mysqlwrapper.table.TableColumn;
+import net.escosoft.mysqlwrapper.util.Preconditions;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Base64;
+
+/**
+ * Streams query rows straight from the {@link ResultSet} into a JSON array of objects, keyed by column name.
+ * Keys are encoded once up front and values are written according to each column's
+ * {@link net.escosoft.mysqlwrapper.table.TableType}: numbers and booleans as JSON literals, binary values as
+ * Base64 strings and everything else as strings. Integral values are formatted without allocating.
+ * A writer holds no per-query state, so it can be shared and reused.
+ */
+public final class JsonWriter {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final TableColumn[] columns;
+    private final String[] keys;
+    private final byte[][] encodedKeys;
+
+    private JsonWriter(TableColumn[] columns) {
+        this.columns = columns;
+        this.keys = new String[columns.length];
+        this.encodedKeys = new byte[columns.length][];
+        for (int i = 0; i < columns.length; i++) {
+            StringBuilder key = new StringBuilder(i == 0 ? "{" : ",");
+            CharOutput.escape(columns[i].getName(), key);
+            this.keys[i] = key.append(':').toString();
+            this.encodedKeys[i] = this.keys[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Writes every remaining row of a query result as UTF-8 JSON.
+     *
+     * @param result the query result.
+     * @param out    the stream to write into, left open.
+     * @return the amount of rows written.
+     */
+    public long write(QueryResult result, OutputStream out) {
+        Preconditions.checkNonNull(out, "Stream can't be null.");
+        return this.write(result, new ByteOutput(out));
+    }
+
+    /**
+     * Writes every remaining row of a query result as JSON.
+     *
+     * @param result the query result.
+     * @param writer the writer to write into, left open.
+     * @return the amount of rows written.
+     */
+    public long write(QueryResult result, Writer writer) {
+        Preconditions.checkNonNull(writer, "Writer can't be null.");
+        return this.write(result, new CharOutput(writer));
+    }
+
+    /**
+     * Runs a query streaming its rows from the server and writes them as UTF-8 JSON.
+     *
+     * @param query the query to run.
+     * @param out   the stream to write into, left open.
+     * @return the amount of rows written.
+     */
+    public long write(Statement query, OutputStream out) {
+        Preconditions.checkNonNull(query, "Query can't be null.");
+        if (query.isRouted()) {
+            throw new IllegalStateException("JSON queries can't be routed across shards.");
+        }
+        long[] rows = new long[1];
+        query.fetchSize(Integer.MIN_VALUE).executeQuery(result -> rows[0] = this.write(result, out));
+        return rows[0];
+    }
+
+    private long write(QueryResult result, Output out) {
+        Preconditions.checkNonNull(result, "Result can't be null.");
+        ResultSet resultSet = result.getResultSet();
+        try {
+            int[] indexes = RowCodec.indexes(resultSet, this.columns);
+            long rows = 0;
+            out.ascii('[');
+            while (resultSet.next()) {
+                if (rows++ > 0) {
+                    out.ascii(',');
+                }
+                for (int i = 0; i < this.columns.length; i++) {
+                    out.key(this.keys[i], this.encodedKeys[i]);
+                    this.writeValue(resultSet, i, indexes[i], out);
+                }
+                out.ascii('}');
+            }
+            out.ascii(']');
+            out.flush();
+            return rows;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error while trying to write a result set as JSON: ", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeValue(ResultSet resultSet, int column, int index, Output out) throws SQLException, IOException {
+        switch (this.columns[column].getType()) {
+            case TINYINT:
+            case SMALLINT:
+            case MEDIUMINT:
+            case INTEGER:
+            case YEAR: {
+                int value = resultSet.getInt(index);
+                if (resultSet.wasNull()) {
+                    out.literal("null");
+                } else {
+                    out.number(value);
+                }
+                break;
+            }
+            case BIGINT: {
+                long value = resultSet.getLong(index);
+                if (resultSet.wasNull()) {
+                    out.literal("null");
+                } else {
+                    out.number(value);
+                }
+                break;
+            }
+            case FLOAT:
+            case DOUBLE:
+            case DOUBLE_PRECISION: {
+                double value = resultSet.getDouble(index);
+                out.literal(resultSet.wasNull() || Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value));
+                break;
+            }
+            case DECIMAL: {
+                BigDecimal value = resultSet.getBigDecimal(index);
+                out.literal(value == null ? "null" : value.toPlainString());
+                break;
+            }
+            case BIT:
+            case BOOLEAN: {
+                boolean value = resultSet.getBoolean(index);
+                out.literal(resultSet.wasNull() ? "null" : value ? "true" : "false");
+                break;
+            }
+            case BINARY:
+            case VARBINARY:
+            case TINYBLOB:
+            case BLOB:
+            case MEDIUMBLOB:
+            case LONGBLOB: {
+                byte[] value = RowCodec.uncompressed(this.columns[column], resultSet.getBytes(index));
+                if (value == null) {
+                    out.literal("null");
+                } else {
+                    out.ascii('"');
+                    out.literal(Base64.getEncoder().encodeToString(value));
+                    out.ascii('"');
+                }
+                break;
+            }
+            default: {
+                String value = RowCodec.uncompressed(this.columns[column], resultSet.getString(index));
+                if (value == null) {
+                    out.literal("null");
+                } else {
+                    out.string(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a new JSON writer for a set of columns.
+     *
+     * @param columns the columns to write, in order.
+     * @return a new JSON writer instance.
+     */
+    public static JsonWriter of(TableColumn... columns) {
+        Preconditions.checkNonNull(columns, "Columns can't be null.");
+        Preconditions.checkLength(columns, 1, "Columns can't be empty.");
+        return new JsonWriter(columns.clone());
+    }
+
+    private abstract static class Output {
+
+        abstract void key(String key, byte[] encoded) throws IOException;
+
+        abstract void ascii(char c) throws IOException;
+
+        abstract void string(String value) throws IOException;
+
+        abstract void flush() throws IOException;
+
+        void literal(String value) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                this.ascii(value.charAt(i));
+            }
+        }
+
+        void number(long value) throws IOException {
+            if (value == Long.MIN_VALUE) {
+                this.literal("-9223372036854775808");
+                return;
+            }
+            if (value < 0) {
+                this.ascii('-');
+                value = -value;
+            }
+            long divisor = 1;
+            while (divisor <= value / 10) {
+                divisor *= 10;
+            }
+            for (; divisor > 0; divisor /= 10) {
+                this.ascii((char) ('0' + value / divisor % 10));
+            }
+        }
+    }
+
+    private static final class ByteOutput extends Output {
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+
+        private ByteOutput(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        void key(String key, byte[] encoded) throws IOException {
+            if (encoded.length > this.buffer.length - this.position) {
+                this.drain();
+            }
+            if (encoded.length > this.buffer.length) {
+                this.out.write(encoded);
+                return;
+            }
+            System.arraycopy(encoded, 0, this.buffer, this.position, encoded.length);
+            this.position += encoded.length;
+        }
+
+        @Override
+        void ascii(char c) throws IOException {
+            if (this.position == this.buffer.length) {
+                this.drain();
+            }
+            this.buffer[this.position++] = (byte) c;
+        }
+
+        @Override
+        void string(String value) throws IOException {
+            this.ascii('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\' || c < 0x20) {
+                    this.escaped(c);
+                } else if (c < 0x80) {
+                    this.ascii(c);
+                } else if (c < 0x800) {
+                    this.raw(0xC0 | (c >> 6));
+                    this.raw(0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    this.raw(0xF0 | (codePoint >> 18));
+                    this.raw(0x80 | ((codePoint >> 12) & 0x3F));
+                    this.raw(0x80 | ((codePoint >> 6) & 0x3F));
+                    this.raw(0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    this.raw('?');
+                } else {
+                    this.raw(0xE0 | (c >> 12));
+                    this.raw(0x80 | ((c >> 6) & 0x3F));
+                    this.raw(0x80 | (c & 0x3F));
+                }
+            }
+            this.ascii('"');
+        }
+
+        private void escaped(char c) throws IOException {
+            this.ascii('\\');
+            switch (c) {
+                case '"':
+                case '\\':
+                    this.ascii(c);
+                    break;
+                case '\n':
+                    this.ascii('n');
+                    break;
+                case '\r':
+                    this.ascii('r');
+                    break;
+                case '\t':
+                    this.ascii('t');
+                    break;
+                default:
+                    this.literal(String.format("u%04x", (int) c));
+            }
+        }
+
+        private void raw(int b) throws IOException {
+            if (this.position == this.buffer.length) {
+                this.drain();
+            }
+            this.buffer[this.position++] = (byte) b;
+        }
+
+        private void drain() throws IOException {
+            this.out.write(this.buffer, 0, this.position);
+            this.position = 0;
+        }
+
+        @Override
+        void flush() throws IOException {
+            this.drain();
+            this.out.flush();
+        }
+    }
+
+    private static final class CharOutput extends Output {
+
+        private final Writer writer;
+        private final StringBuilder buffer = new StringBuilder(BUFFER_SIZE);
+
+        private CharOutput(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        void key(String key, byte[] encoded) throws IOException {
+            this.buffer.append(key);
+            this.drainIfFull();
+        }
+
+        @Override
+        void ascii(char c) throws IOException {
+            this.buffer.append(c);
+            this.drainIfFull();
+        }
+
+        @Override
+        void string(String value) throws IOException {
+            escape(value, this.buffer);
+            this.drainIfFull();
+        }
+
+        @Override
+        void flush() throws IOException {
+            this.writer.append(this.buffer);
+            this.buffer.setLength(0);
+            this.writer.flush();
+        }
+
+        private void drainIfFull() throws IOException {
+            if (this.buffer.length() >= BUFFER_SIZE) {
+                this.writer.append(this.buffer);
+                this.buffer.setLength(0);
+            }
+        }
+
+        static void escape(String value, StringBuilder builder) {
+            builder.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                        builder.append("\\\"");
+                        break;
+                    case '\\':
+                        builder.append("\\\\");
+                        break;
+                    case '\n':
+                        builder.append("\\n");
+                        break;
+                    case '\r':
+                        builder.append("\\r");
+                        break;
+                    case '\t':
+                        builder.append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            builder.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            builder.append(c);
+                        }
+                }
+            }
+            builder.append('"');
+        }
+    }
+}
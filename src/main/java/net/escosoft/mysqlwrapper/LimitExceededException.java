@@ -0,0 +1,20 @@
+package net.escosoft.mysqlwrapper;
+
+import lombok.Getter;
+
+/**
+ * Thrown when an operation is rejected because the {@link ConcurrencyLimiter} of its database is at its limit.
+ * The database is likely overloaded, so the operation should be shed or retried later rather than right away.
+ */
+@Getter
+public final class LimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int limit;
+
+    LimitExceededException(int limit) {
+        super("Concurrency limit of " + limit + " reached.");
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,325 @@
+package net.escosoft.mysqlwrapper;
+
+import net.escosoft.mysqlwrapper.table.TableColumn;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Query rows copied out of the {@link ResultSet} for random access and multiple passes. Rows are kept in heap
+ * until their estimated size reaches a byte budget; the rest are spilled to a temporary file in the compact
+ * binary row encoding and read back through memory-mapped I/O, so a huge result can't exhaust the heap.
+ * Only an 8 byte offset per spilled row stays in heap. Like a result set, instances aren't thread-safe,
+ * and they must be closed to delete the spill file.
+ */
+public final class MaterializedResult implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MAX_SEGMENT_SIZE = 1L << 30;
+
+    private final TableColumn[] columns;
+    private final List<Object[]> heapRows = new ArrayList<>();
+
+    private Path spillFile;
+    private long[] spillOffsets = new long[0];
+    private int spilledRows;
+    private MappedByteBuffer[] segments;
+    private long[] segmentStarts;
+    private final SegmentInput segmentInput = new SegmentInput();
+    private final DataInputStream spillInput = new DataInputStream(this.segmentInput);
+
+    private int row = -1;
+    private Object[] current;
+    private final Object[] spilledRow;
+
+    private MaterializedResult(TableColumn[] columns) {
+        this.columns = columns;
+        this.spilledRow = new Object[columns.length];
+    }
+
+    /**
+     * Gets the amount of rows.
+     *
+     * @return the amount of rows.
+     */
+    public int size() {
+        return this.heapRows.size() + this.spilledRows;
+    }
+
+    /**
+     * Checks whether part of the rows were spilled to disk.
+     *
+     * @return true if rows were spilled.
+     */
+    public boolean isSpilled() {
+        return this.spilledRows > 0;
+    }
+
+    /**
+     * Moves to the next row.
+     *
+     * @return true if there's a next row.
+     */
+    public boolean next() {
+        if (this.row + 1 >= this.size()) {
+            this.row = this.size();
+            this.current = null;
+            return false;
+        }
+        return this.absolute(this.row + 1);
+    }
+
+    /**
+     * Moves to a specific row.
+     *
+     * @param row the row index, starting at 0.
+     * @return true if the row exists.
+     */
+    public boolean absolute(int row) {
+        if (row < 0 || row >= this.size()) {
+            return false;
+        }
+        this.row = row;
+        this.current = row < this.heapRows.size() ? this.heapRows.get(row) : this.readSpilled(row - this.heapRows.size());
+        return true;
+    }
+
+    /**
+     * Moves before the first row, so the rows can be iterated again.
+     */
+    public void beforeFirst() {
+        this.row = -1;
+        this.current = null;
+    }
+
+    /**
+     * Gets a value from a specific column of the current row.
+     *
+     * @param column the column instance.
+     * @return the value, or null if it's SQL NULL.
+     */
+    public Object get(TableColumn column) {
+        if (this.current == null) {
+            throw new IllegalStateException("Result is not positioned on a row.");
+        }
+        for (int i = 0; i < this.columns.length; i++) {
+            if (this.columns[i] == column) {
+                return this.current[i];
+            }
+        }
+        throw new IllegalArgumentException("Column '" + column.getName() + "' wasn't materialized.");
+    }
+
+    public String getString(TableColumn column) {
+        Object value = this.get(column);
+        return value == null ? null : value.toString();
+    }
+
+    public int getInt(TableColumn column) {
+        Object value = this.get(column);
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    public long getLong(TableColumn column) {
+        Object value = this.get(column);
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
+    public double getDouble(TableColumn column) {
+        Object value = this.get(column);
+        return value == null ? 0 : ((Number) value).doubleValue();
+    }
+
+    public boolean getBoolean(TableColumn column) {
+        Object value = this.get(column);
+        return value != null && (Boolean) value;
+    }
+
+    public byte[] getBytes(TableColumn column) {
+        return (byte[]) this.get(column);
+    }
+
+    public BigDecimal getBigDecimal(TableColumn column) {
+        return (BigDecimal) this.get(column);
+    }
+
+    public Timestamp getTimestamp(TableColumn column) {
+        return (Timestamp) this.get(column);
+    }
+
+    public Date getDate(TableColumn column) {
+        return (Date) this.get(column);
+    }
+
+    public Time getTime(TableColumn column) {
+        return (Time) this.get(column);
+    }
+
+    @Override
+    public void close() {
+        this.heapRows.clear();
+        this.segments = null;
+        this.current = null;
+        if (this.spillFile != null) {
+            try {
+                Files.deleteIfExists(this.spillFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                this.spillFile = null;
+            }
+        }
+    }
+
+    private Object[] readSpilled(int row) {
+        long offset = this.spillOffsets[row];
+        int segment = Arrays.binarySearch(this.segmentStarts, offset);
+        if (segment < 0) {
+            segment = -segment - 2;
+        }
+        ByteBuffer buffer = this.segments[segment];
+        buffer.position((int) (offset - this.segmentStarts[segment]));
+        this.segmentInput.buffer = buffer;
+        try {
+            RowCodec.decode(this.columns, this.spillInput, this.spilledRow);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this.spilledRow;
+    }
+
+    private void load(ResultSet resultSet, long heapBudget) throws SQLException, IOException {
+        int[] indexes = RowCodec.indexes(resultSet, this.columns);
+        long heapBytes = 0;
+        while (heapBytes < heapBudget && resultSet.next()) {
+            Object[] values = new Object[this.columns.length];
+            RowCodec.read(resultSet, this.columns, indexes, values);
+            this.heapRows.add(values);
+            heapBytes += estimate(values);
+        }
+        // The budget may be crossed by the last row, in which case there's nothing left to spill
+        if (heapBytes < heapBudget || !resultSet.next()) {
+            return;
+        }
+
+        this.spillFile = Files.createTempFile("mysql-wrapper-", ".spill");
+        List<Long> segmentStarts = new ArrayList<>();
+        segmentStarts.add(0L);
+        try (FileChannel channel = FileChannel.open(this.spillFile, StandardOpenOption.WRITE)) {
+            CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            DataOutputStream out = new DataOutputStream(counter);
+            long segmentStart = 0;
+            do {
+                long offset = counter.count;
+                RowCodec.encode(resultSet, this.columns, indexes, out);
+                // Segments are cut at row boundaries so every row can be decoded from a single mapping
+                if (counter.count - segmentStart > MAX_SEGMENT_SIZE) {
+                    segmentStart = offset;
+                    segmentStarts.add(offset);
+                }
+                if (this.spilledRows == this.spillOffsets.length) {
+                    this.spillOffsets = Arrays.copyOf(this.spillOffsets, Math.max(1024, this.spilledRows * 2));
+                }
+                this.spillOffsets[this.spilledRows++] = offset;
+            } while (resultSet.next());
+            out.flush();
+        }
+
+        this.segmentStarts = segmentStarts.stream().mapToLong(Long::longValue).toArray();
+        this.segments = new MappedByteBuffer[this.segmentStarts.length];
+        try (FileChannel channel = FileChannel.open(this.spillFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (int i = 0; i < this.segmentStarts.length; i++) {
+                long end = i + 1 < this.segmentStarts.length ? this.segmentStarts[i + 1] : size;
+                this.segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, this.segmentStarts[i], end - this.segmentStarts[i]);
+            }
+        }
+    }
+
+    private static long estimate(Object[] values) {
+        long size = 16 + 8L * values.length;
+        for (Object value : values) {
+            if (value instanceof String) {
+                size += 40 + ((String) value).length();
+            } else if (value instanceof byte[]) {
+                size += 16 + ((byte[]) value).length;
+            } else if (value instanceof BigDecimal) {
+                size += 64;
+            } else if (value != null) {
+                size += 24;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Materializes every remaining row of a result set.
+     *
+     * @param resultSet  the result set to read.
+     * @param columns    the columns to keep.
+     * @param heapBudget the estimated amount of bytes rows may take in heap before spilling to disk.
+     * @return a new materialized result instance.
+     */
+    static MaterializedResult load(ResultSet resultSet, TableColumn[] columns, long heapBudget) {
+        MaterializedResult result = new MaterializedResult(columns);
+        try {
+            result.load(resultSet, heapBudget);
+        } catch (SQLException | IOException e) {
+            result.close();
+            throw new RuntimeException("Error while trying to materialize a result set: ", e);
+        }
+        return result;
+    }
+
+    private static final class SegmentInput extends InputStream {
+
+        private ByteBuffer buffer;
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            length = Math.min(length, this.buffer.remaining());
+            this.buffer.get(bytes, offset, length);
+            return length;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            this.out.write(bytes, offset, length);
+            this.count += length;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package net.escosoft.mysqlwrapper;
+
+import net.escosoft.mysqlwrapper.shard.ShardRouter;
+import net.escosoft.mysqlwrapper.table.Table;
+import net.escosoft.mysqlwrapper.table.TableColumn;
+import net.escosoft.mysqlwrapper.util.Preconditions;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Loads the rows of a large set of keys with parameterized {@code IN (?, ...)} queries. Keys are
+ * deduplicated and split into chunks of a fixed size that run in parallel across pool connections,
+ * as many at once as the database's {@link ConcurrencyLimiter} leaves room for.
+ * Chunks smaller than that are padded to the next power of two by repeating their last key, so only a
+ * handful of distinct statements are ever prepared. With a {@link ShardRouter}, keys are grouped by the
+ * shard owning them first.
+ *
+ * @param <K> the key type, matching the values of the key column read through {@link QueryResult#get(TableColumn, Class)}.
+ */
+public final class MultiGet<K> {
+
+    private final Table table;
+    private final TableColumn key;
+    private final Class<K> keyType;
+
+    private String[] columns = {"*"};
+    private int chunkSize = 500;
+    private Priority priority = Priority.NORMAL;
+    private Database database;
+    private ShardRouter router;
+
+    private MultiGet(Table table, TableColumn key, Class<K> keyType) {
+        this.table = table;
+        this.key = key;
+        this.keyType = keyType;
+    }
+
+    /**
+     * Selects only some columns instead of all of them. The key column is always selected.
+     *
+     * @param columns the columns to select.
+     */
+    public MultiGet<K> columns(TableColumn... columns) {
+        Preconditions.checkNonNull(columns, "Columns can't be null.");
+        Preconditions.checkLength(columns, 1, "Columns can't be empty.");
+        Set<String> names = new LinkedHashSet<>();
+        names.add(this.key.getName());
+        for (TableColumn column : columns) {
+            names.add(column.getName());
+        }
+        this.columns = names.toArray(new String[0]);
+        return this;
+    }
+
+    /**
+     * Sets the amount of keys looked up per query.
+     *
+     * @param chunkSize the amount of keys per query.
+     */
+    public MultiGet<K> chunkSize(int chunkSize) {
+        Preconditions.checkRange(chunkSize, 1, 65535, "Chunk size must be between 1 and 65535.");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Sets the priority class the chunk queries are scheduled with.
+     *
+     * @param priority the priority class.
+     */
+    public MultiGet<K> priority(Priority priority) {
+        this.priority = Preconditions.checkNonNull(priority, "Priority can't be null.");
+        return this;
+    }
+
+    /**
+     * Runs the lookup on a particular database instead of the default one.
+     *
+     * @param database the database to run on.
+     */
+    public MultiGet<K> using(Database database) {
+        this.database = Preconditions.checkNonNull(database, "Database can't be null.");
+        this.router = null;
+        return this;
+    }
+
+    /**
+     * Runs the lookup on the shards owning each key.
+     *
+     * @param router the shard router.
+     */
+    public MultiGet<K> using(ShardRouter router) {
+        this.router = Preconditions.checkNonNull(router, "Router can't be null.");
+        this.database = null;
+        return this;
+    }
+
+    /**
+     * Looks up a set of keys, blocking until every chunk has run.
+     *
+     * @param keys   the keys to look up.
+     * @param mapper maps the current row of a result into a value.
+     * @return the values keyed by key, missing keys having no entry. If a key matches multiple rows the last one wins.
+     */
+    public <V> Map<K, V> fetch(Collection<? extends K> keys, Function<QueryResult, V> mapper) {
+        try {
+            return this.fetchAsync(keys, mapper).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Looks up a set of keys asynchronously. Cancelling the returned future cancels every chunk.
+     *
+     * @param keys   the keys to look up.
+     * @param mapper maps the current row of a result into a value.
+     * @return a future completed with the values keyed by key.
+     * @throws LimitExceededException if the concurrency limit of a database is reached before any chunk could start on it.
+     */
+    public <V> CompletableFuture<Map<K, V>> fetchAsync(Collection<? extends K> keys, Function<QueryResult, V> mapper) {
+        Preconditions.checkNonNull(keys, "Keys can't be null.");
+        Preconditions.checkNonNull(mapper, "Mapper can't be null.");
+        Lookup<V> lookup = new Lookup<>(mapper, keys.size());
+        for (Map.Entry<Database, List<K>> shard : this.partition(keys).entrySet()) {
+            List<K> shardKeys = shard.getValue();
+            ArrayDeque<List<K>> chunks = new ArrayDeque<>();
+            for (int from = 0; from < shardKeys.size(); from += this.chunkSize) {
+                chunks.add(shardKeys.subList(from, Math.min(from + this.chunkSize, shardKeys.size())));
+            }
+            lookup.pending.put(shard.getKey(), chunks);
+        }
+        lookup.start();
+        return lookup.result;
+    }
+
+    private Map<Database, List<K>> partition(Collection<? extends K> keys) {
+        Map<Database, List<K>> partitions = new LinkedHashMap<>();
+        Set<K> unique = new HashSet<>(Math.max(16, keys.size() * 4 / 3 + 1));
+        for (K key : keys) {
+            Preconditions.checkNonNull(key, "Key can't be null.");
+            if (!unique.add(key)) {
+                continue;
+            }
+            Database database = this.router != null ? this.router.route(key) : this.database != null ? this.database : Database.getDefault();
+            partitions.computeIfAbsent(database, ignored -> new ArrayList<>()).add(key);
+        }
+        return partitions;
+    }
+
+    private <V> CompletableFuture<Map<K, V>> fetchChunk(Database database, List<K> chunk, Function<QueryResult, V> mapper) {
+        int placeholders = Math.min(this.chunkSize, Integer.highestOneBit(chunk.size() * 2 - 1));
+        Statement statement = Statement.create()
+                .selectFrom(this.table, this.columns)
+                .where()
+                .in(this.key, placeholders)
+                .using(database);
+        for (int i = 0; i < placeholders; i++) {
+            statement.bind(this.key, chunk.get(Math.min(i, chunk.size() - 1)));
+        }
+        CompletableFuture<Map<K, V>> future = database.getScheduler().submit(this.priority, () -> {
+            Map<K, V> values = new HashMap<>(chunk.size() * 4 / 3 + 1);
+            statement.executeQuery(result -> {
+                while (result.next()) {
+                    values.put(result.get(this.key, this.keyType), mapper.apply(result));
+                }
+            });
+            return values;
+        });
+        future.whenComplete((values, e) -> {
+            if (future.isCancelled()) {
+                statement.cancel();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * A running lookup. Chunks are submitted to each database only while its {@link ConcurrencyLimiter} has
+     * permits left, the rest being submitted as running chunks complete, so a lookup with more chunks than
+     * the limit isn't rejected just for its size. A lookup never holds more than half of the limit, leaving
+     * permits for other work.
+     */
+    private final class Lookup<V> {
+
+        private final Function<QueryResult, V> mapper;
+        private final Map<Database, ArrayDeque<List<K>>> pending = new LinkedHashMap<>();
+        private final Map<Database, Integer> running = new HashMap<>();
+        private final Set<CompletableFuture<Map<K, V>>> futures = new HashSet<>();
+        private final Map<K, V> values;
+        private final CompletableFuture<Map<K, V>> result = new CompletableFuture<>();
+
+        private Lookup(Function<QueryResult, V> mapper, int keys) {
+            this.mapper = mapper;
+            this.values = new HashMap<>(Math.max(16, keys * 4 / 3 + 1));
+        }
+
+        private synchronized void start() {
+            try {
+                for (Database database : this.pending.keySet()) {
+                    this.submit(database);
+                }
+            } catch (RuntimeException e) {
+                this.cancel();
+                throw e;
+            }
+            this.result.whenComplete((values, e) -> {
+                if (e != null) {
+                    this.cancel();
+                }
+            });
+            this.completeIfDone();
+        }
+
+        private void submit(Database database) {
+            ArrayDeque<List<K>> chunks = this.pending.get(database);
+            ConcurrencyLimiter limiter = database.getConcurrencyLimiter();
+            while (!chunks.isEmpty() && !this.result.isDone()) {
+                int running = this.running.getOrDefault(database, 0);
+                if (limiter != null && running > 0 && (running >= Math.max(1, limiter.getLimit() / 2) || limiter.getInFlight() >= limiter.getLimit())) {
+                    return;
+                }
+                CompletableFuture<Map<K, V>> future;
+                try {
+                    future = MultiGet.this.fetchChunk(database, chunks.peek(), this.mapper);
+                } catch (LimitExceededException e) {
+                    // Retried once one of the running chunks completes and returns its permit
+                    if (running > 0) {
+                        return;
+                    }
+                    throw e;
+                }
+                chunks.poll();
+                this.running.put(database, running + 1);
+                this.futures.add(future);
+                future.whenComplete((values, e) -> this.completed(database, future, values, e));
+            }
+        }
+
+        private synchronized void completed(Database database, CompletableFuture<Map<K, V>> future, Map<K, V> values, Throwable e) {
+            this.futures.remove(future);
+            this.running.merge(database, -1, Integer::sum);
+            if (e != null) {
+                this.result.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                return;
+            }
+            this.values.putAll(values);
+            try {
+                this.submit(database);
+            } catch (RuntimeException submitError) {
+                this.result.completeExceptionally(submitError);
+                return;
+            }
+            this.completeIfDone();
+        }
+
+        private void completeIfDone() {
+            for (Map.Entry<Database, ArrayDeque<List<K>>> shard : this.pending.entrySet()) {
+                if (!shard.getValue().isEmpty() || this.running.getOrDefault(shard.getKey(), 0) > 0) {
+                    return;
+                }
+            }
+            this.result.complete(this.values);
+        }
+
+        private synchronized void cancel() {
+            this.pending.values().forEach(ArrayDeque::clear);
+            new ArrayList<>(this.futures).forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Creates a new multi-get over a key column of a table.
+     *
+     * @param table   the table to look up.
+     * @param key     the key column, usually the primary key.
+     * @param keyType the class key values are read as.
+     * @return a new multi-get instance.
+     */
+    public static <K> MultiGet<K> of(Table table, TableColumn key, Class<K> keyType) {
+        Preconditions.checkNonNull(table, "Table can't be null.");
+        Preconditions.checkNonNull(key, "Key can't be null.");
+        Preconditions.checkNonNull(keyType, "Key type can't be null.");
+        return new MultiGet<>(table, key, keyType);
+    }
+}
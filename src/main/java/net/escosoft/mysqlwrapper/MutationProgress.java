@@ -0,0 +1,40 @@
+package net.escosoft.mysqlwrapper;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Progress of a {@link ChunkedMutation}, reported after every chunk.
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class MutationProgress {
+
+    /**
+     * The amount of chunks run so far.
+     */
+    private final long chunks;
+    /**
+     * The amount of rows affected so far.
+     */
+    private final long affectedRows;
+    /**
+     * The amount of rows affected by the last chunk.
+     */
+    private final int chunkAffectedRows;
+    /**
+     * The time the last chunk took, in milliseconds.
+     */
+    private final long chunkMillis;
+    /**
+     * The time elapsed since the mutation started, in milliseconds.
+     */
+    private final long elapsedMillis;
+    /**
+     * The upper key of the last chunk in key range mode, from which an interrupted mutation can be resumed.
+     */
+    private final Object lastKey;
+}
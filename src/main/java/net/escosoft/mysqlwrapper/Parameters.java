@@ -0,0 +1,324 @@
+package net.escosoft.mysqlwrapper;
+
+import net.escosoft.mysqlwrapper.table.TableColumn;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+
+/**
+ * Typed storage for {@link Statement} parameters. Primitives are kept unboxed in a {@code long} array
+ * and bound with their specific {@link PreparedStatement} setter, so the driver never has to inspect
+ * them at runtime. Parameters may be split into rows for batch executions.
+ */
+final class Parameters {
+
+    private static final byte OBJECT = 0;
+    private static final byte NULL = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte STRING = 6;
+    private static final byte BYTES = 7;
+    private static final byte TIMESTAMP = 8;
+    private static final byte STREAM = 9;
+
+    private byte[] kinds = new byte[8];
+    private long[] primitives = new long[8];
+    private Object[] objects = new Object[8];
+    private int size;
+
+    private int[] rowEnds = new int[4];
+    private int rows;
+
+    int size() {
+        return this.size;
+    }
+
+    int rows() {
+        return this.rows;
+    }
+
+    /**
+     * Gets a parameter value, boxing it if it's a primitive.
+     *
+     * @param index the parameter index, starting at 0.
+     * @return the parameter value.
+     */
+    Object get(int index) {
+        switch (this.kinds[index]) {
+            case NULL:
+                return null;
+            case INT:
+                return (int) this.primitives[index];
+            case LONG:
+                return this.primitives[index];
+            case DOUBLE:
+                return Double.longBitsToDouble(this.primitives[index]);
+            case BOOLEAN:
+                return this.primitives[index] != 0;
+            default:
+                return this.objects[index];
+        }
+    }
+
+    /**
+     * Appends every parameter of another instance, ignoring its batch rows.
+     *
+     * @param other the parameters to copy.
+     */
+    void addAll(Parameters other) {
+        for (int i = 0; i < other.size; i++) {
+            this.add(other.kinds[i], other.primitives[i], other.objects[i]);
+        }
+    }
+
+    void clear() {
+        Arrays.fill(this.objects, 0, this.size, null);
+        this.size = 0;
+        this.rows = 0;
+    }
+
+    /**
+     * Removes the parameters added after the last closed batch row, keeping the closed rows.
+     */
+    void clearOpenRow() {
+        int start = this.rows == 0 ? 0 : this.rowEnds[this.rows - 1];
+        Arrays.fill(this.objects, start, this.size, null);
+        this.size = start;
+    }
+
+    void addObject(Object value) {
+        if (value == null) {
+            this.add(OBJECT, 0, null);
+        } else if (value instanceof BinaryStream) {
+            this.add(STREAM, 0, value);
+        } else {
+            this.add(OBJECT, 0, value);
+        }
+    }
+
+    void addNull(int sqlType) {
+        this.add(NULL, sqlType, null);
+    }
+
+    void addInt(int value) {
+        this.add(INT, value, null);
+    }
+
+    void addLong(long value) {
+        this.add(LONG, value, null);
+    }
+
+    void addDouble(double value) {
+        this.add(DOUBLE, Double.doubleToRawLongBits(value), null);
+    }
+
+    void addBoolean(boolean value) {
+        this.add(BOOLEAN, value ? 1 : 0, null);
+    }
+
+    void addString(String value) {
+        this.add(STRING, 0, value);
+    }
+
+    void addBytes(byte[] value) {
+        this.add(BYTES, 0, value);
+    }
+
+    void addTimestamp(Timestamp value) {
+        this.add(TIMESTAMP, 0, value);
+    }
+
+    /**
+     * Adds a value picking its setter out of a column's {@link net.escosoft.mysqlwrapper.table.TableType},
+     * compressing it if the column is compressed.
+     *
+     * @param column the column the value belongs to.
+     * @param value  the value to add.
+     */
+    void add(TableColumn column, Object value) {
+        if (value == null) {
+            this.addNull(column.getType().getSqlType());
+            return;
+        }
+        switch (column.getType()) {
+            case TINYINT:
+            case SMALLINT:
+            case MEDIUMINT:
+            case INTEGER:
+            case YEAR:
+                this.addInt(((Number) value).intValue());
+                break;
+            case BIGINT:
+                this.addLong(((Number) value).longValue());
+                break;
+            case FLOAT:
+            case DOUBLE:
+            case DOUBLE_PRECISION:
+                this.addDouble(((Number) value).doubleValue());
+                break;
+            case BIT:
+            case BOOLEAN:
+                this.addBoolean(value instanceof Number ? ((Number) value).intValue() != 0 : (Boolean) value);
+                break;
+            case CHAR:
+            case VARCHAR:
+            case TINYTEXT:
+            case TEXT:
+            case MEDIUMTEXT:
+            case LONGTEXT:
+            case ENUM:
+            case SET:
+                String string = value.toString();
+                this.addString(column.getCompression() != null ? column.getCompression().encode(string) : string);
+                break;
+            case BINARY:
+            case VARBINARY:
+            case TINYBLOB:
+            case BLOB:
+            case MEDIUMBLOB:
+            case LONGBLOB:
+                if (value instanceof byte[]) {
+                    byte[] bytes = (byte[]) value;
+                    this.addBytes(column.getCompression() != null ? column.getCompression().encode(bytes) : bytes);
+                } else {
+                    this.addObject(value);
+                }
+                break;
+            case DATETIME:
+            case TIMESTAMP:
+                if (value instanceof Timestamp) {
+                    this.addTimestamp((Timestamp) value);
+                } else {
+                    this.addObject(value);
+                }
+                break;
+            default:
+                this.addObject(value);
+        }
+    }
+
+    /**
+     * Closes the parameters added so far as a batch row.
+     */
+    void endRow() {
+        int start = this.rows == 0 ? 0 : this.rowEnds[this.rows - 1];
+        if (this.size == start) {
+            throw new IllegalStateException("Batch row has no parameters.");
+        }
+        if (this.rows == this.rowEnds.length) {
+            this.rowEnds = Arrays.copyOf(this.rowEnds, this.rows * 2);
+        }
+        this.rowEnds[this.rows++] = this.size;
+    }
+
+    /**
+     * Gets the amount of parameters added after the last closed batch row.
+     */
+    int openRowSize() {
+        return this.size - (this.rows == 0 ? 0 : this.rowEnds[this.rows - 1]);
+    }
+
+    /**
+     * Whether there are parameters added after the last closed batch row.
+     */
+    boolean hasOpenRow() {
+        return this.openRowSize() > 0;
+    }
+
+    /**
+     * Binds every parameter into a statement.
+     *
+     * @param statement the statement to bind into.
+     */
+    void bind(PreparedStatement statement) throws SQLException {
+        this.bind(statement, 0, this.size);
+    }
+
+    /**
+     * Binds the parameters of a batch row into a statement.
+     *
+     * @param statement the statement to bind into.
+     * @param row       the batch row index.
+     */
+    void bindRow(PreparedStatement statement, int row) throws SQLException {
+        this.bind(statement, row == 0 ? 0 : this.rowEnds[row - 1], this.rowEnds[row]);
+    }
+
+    private void bind(PreparedStatement statement, int from, int to) throws SQLException {
+        for (int i = from; i < to; i++) {
+            int index = i - from + 1;
+            switch (this.kinds[i]) {
+                case NULL:
+                    statement.setNull(index, (int) this.primitives[i]);
+                    break;
+                case INT:
+                    statement.setInt(index, (int) this.primitives[i]);
+                    break;
+                case LONG:
+                    statement.setLong(index, this.primitives[i]);
+                    break;
+                case DOUBLE:
+                    statement.setDouble(index, Double.longBitsToDouble(this.primitives[i]));
+                    break;
+                case BOOLEAN:
+                    statement.setBoolean(index, this.primitives[i] != 0);
+                    break;
+                case STRING:
+                    statement.setString(index, (String) this.objects[i]);
+                    break;
+                case BYTES:
+                    statement.setBytes(index, (byte[]) this.objects[i]);
+                    break;
+                case TIMESTAMP:
+                    statement.setTimestamp(index, (Timestamp) this.objects[i]);
+                    break;
+                case STREAM:
+                    BinaryStream stream = (BinaryStream) this.objects[i];
+                    statement.setBinaryStream(index, stream.getStream(), stream.getLength());
+                    break;
+                default:
+                    statement.setObject(index, this.objects[i]);
+            }
+        }
+    }
+
+    /**
+     * Whether any parameter is a {@link BinaryStream}, which can only be read once.
+     */
+    boolean hasStreams() {
+        for (int i = 0; i < this.size; i++) {
+            if (this.kinds[i] == STREAM) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Closes every {@link BinaryStream} parameter.
+     */
+    void closeStreams() {
+        for (int i = 0; i < this.size; i++) {
+            if (this.kinds[i] == STREAM) {
+                ((BinaryStream) this.objects[i]).close();
+            }
+        }
+    }
+
+    private void add(byte kind, long primitive, Object object) {
+        if (this.size == this.kinds.length) {
+            int capacity = this.size * 2;
+            this.kinds = Arrays.copyOf(this.kinds, capacity);
+            this.primitives = Arrays.copyOf(this.primitives, capacity);
+            this.objects = Arrays.copyOf(this.objects, capacity);
+        }
+        this.kinds[this.size] = kind;
+        this.primitives[this.size] = primitive;
+        this.objects[this.size] = object;
+        this.size++;
+    }
+}
@@ -0,0 +1,25 @@
+package net.escosoft.mysqlwrapper;
+
+/**
+ * Receives the pool telemetry a {@link Database} pushes periodically, registered through
+ * {@link Database#poolListener(PoolListener)}. Listeners are called from a single monitor thread,
+ * so they should hand heavy work off rather than block it.
+ */
+public interface PoolListener {
+
+    /**
+     * Called once per monitor interval with a snapshot of the pool.
+     *
+     * @param statistics the pool statistics.
+     */
+    default void onStatistics(PoolStatistics statistics) {
+    }
+
+    /**
+     * Called once for every connection held longer than the leak detection threshold.
+     *
+     * @param connection the connection suspected to leak.
+     */
+    default void onLeak(HeldConnection connection) {
+    }
+}
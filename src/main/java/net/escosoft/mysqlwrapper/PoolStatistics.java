@@ -0,0 +1,43 @@
+package net.escosoft.mysqlwrapper;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.escosoft.mysqlwrapper.util.Histogram;
+
+import java.util.List;
+
+/**
+ * Snapshot of the connection pool of a {@link Database}, telling an exhausted pool (pending threads,
+ * high acquire times), leaking connections (long held connections) and a slow server (long usage times) apart.
+ * Histograms are cumulative since the database connected, copied at the time of the snapshot.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class PoolStatistics {
+
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int totalConnections;
+    private final int maxPoolSize;
+    /**
+     * The amount of threads waiting for a connection.
+     */
+    private final int pendingThreads;
+    /**
+     * The time taken to acquire connections from the pool, in nanoseconds.
+     */
+    private final Histogram acquireNanos;
+    /**
+     * The time connections were in use before being returned to the pool, in milliseconds.
+     */
+    private final Histogram usageMillis;
+    /**
+     * The amount of connection requests that timed out.
+     */
+    private final long timeouts;
+    /**
+     * The connections currently in use, only tracked when leak detection is enabled.
+     */
+    private final List<HeldConnection> heldConnections;
+}
@@ -0,0 +1,11 @@
+package net.escosoft.mysqlwrapper;
+
+/**
+ * Scheduling classes for asynchronous {@link Statement} executions. Higher classes are dispatched
+ * first and may use connections reserved for them through {@link Database#reserveConnections(Priority, int)}.
+ */
+public enum Priority {
+    INTERACTIVE,
+    NORMAL,
+    BULK;
+}
@@ -2,14 +2,29 @@ package net.escosoft.mysqlwrapper;
 
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.escosoft.mysqlwrapper.codec.ColumnCompression;
 import net.escosoft.mysqlwrapper.table.TableColumn;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.sql.*;
 
 @AllArgsConstructor(access = AccessLevel.PROTECTED)
 public final class QueryResult {
 
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<ByteBuffer> TRANSFER_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(TRANSFER_BUFFER_SIZE));
+
+    @Getter(AccessLevel.PROTECTED)
     private final ResultSet resultSet;
 
     /**
@@ -34,7 +49,17 @@ public final class QueryResult {
      */
     public <T> T get(TableColumn column, Class<T> type) {
         try {
-            return this.resultSet.getObject(column.getName(), type);
+            T value = this.resultSet.getObject(column.getName(), type);
+            if (column.getCompression() == null || value == null) {
+                return value;
+            }
+            if (value instanceof String) {
+                return type.cast(ColumnCompression.decode((String) value));
+            }
+            if (value instanceof byte[]) {
+                return type.cast(ColumnCompression.decode((byte[]) value));
+            }
+            return value;
         } catch (SQLException e) {
             throw new RuntimeException("Error while trying to handle a result set for column '" + column.getName() + "': ", e);
         }
@@ -68,6 +93,10 @@ public final class QueryResult {
         return this.get(column, byte.class);
     }
 
+    public byte[] getBytes(TableColumn column) {
+        return this.get(column, byte[].class);
+    }
+
     public Timestamp getTimestamp(TableColumn column) {
         return this.get(column, Timestamp.class);
     }
@@ -91,4 +120,68 @@ public final class QueryResult {
     public BigDecimal getBigDecimal(TableColumn column) {
         return this.get(column, BigDecimal.class);
     }
+
+    /**
+     * Streams the binary content of a column into a channel without materializing it in heap.
+     * A direct buffer reused per thread is used for the copy. Compressed columns are decompressed in heap first.
+     *
+     * @param column the column instance.
+     * @param target the channel to write into.
+     * @return the amount of bytes transferred, or -1 if the value is SQL NULL.
+     */
+    public long transferTo(TableColumn column, WritableByteChannel target) {
+        if (column.getCompression() != null) {
+            return this.transferDecoded(column, target);
+        }
+        try (InputStream stream = this.resultSet.getBinaryStream(column.getName())) {
+            if (stream == null) {
+                return -1;
+            }
+            ReadableByteChannel source = Channels.newChannel(stream);
+            ByteBuffer buffer = TRANSFER_BUFFER.get();
+            long transferred = 0;
+            buffer.clear();
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    transferred += target.write(buffer);
+                }
+                buffer.clear();
+            }
+            return transferred;
+        } catch (SQLException | IOException e) {
+            throw new RuntimeException("Error while trying to transfer column '" + column.getName() + "': ", e);
+        }
+    }
+
+    private long transferDecoded(TableColumn column, WritableByteChannel target) {
+        byte[] value = this.getBytes(column);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(value);
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            return value.length;
+        } catch (IOException e) {
+            throw new RuntimeException("Error while trying to transfer column '" + column.getName() + "': ", e);
+        }
+    }
+
+    /**
+     * Streams the binary content of a column into a file, replacing it if it already exists.
+     *
+     * @param column the column instance.
+     * @param path   the file to write into.
+     * @return the amount of bytes transferred, or -1 if the value is SQL NULL.
+     */
+    public long transferTo(TableColumn column, Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return this.transferTo(column, channel);
+        } catch (IOException e) {
+            throw new RuntimeException("Error while trying to open file '" + path + "': ", e);
+        }
+    }
 }
@@ -0,0 +1,303 @@
+package net.escosoft.mysqlwrapper;
+
+import lombok.experimental.UtilityClass;
+import net.escosoft.mysqlwrapper.codec.ColumnCompression;
+import net.escosoft.mysqlwrapper.table.TableColumn;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+
+/**
+ * Compact binary encoding of result set rows driven by each column's {@link net.escosoft.mysqlwrapper.table.TableType}.
+ * Every value is written as a presence byte followed by its fixed-width or length-prefixed payload.
+ * Values of compressed columns are decompressed, so encoded rows always hold raw values.
+ */
+@UtilityClass
+class RowCodec {
+
+    /**
+     * Resolves the result set indexes of a set of columns once, so rows can be read by index.
+     *
+     * @param resultSet the result set.
+     * @param columns   the columns to resolve.
+     * @return the column indexes in the same order.
+     */
+    int[] indexes(ResultSet resultSet, TableColumn[] columns) throws SQLException {
+        int[] indexes = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            indexes[i] = resultSet.findColumn(columns[i].getName());
+        }
+        return indexes;
+    }
+
+    /**
+     * Encodes the current row of a result set.
+     *
+     * @param resultSet the result set positioned on a row.
+     * @param columns   the columns to encode.
+     * @param indexes   the result set indexes of the columns.
+     * @param out       the output to write into.
+     */
+    void encode(ResultSet resultSet, TableColumn[] columns, int[] indexes, DataOutput out) throws SQLException, IOException {
+        for (int i = 0; i < columns.length; i++) {
+            int index = indexes[i];
+            switch (columns[i].getType()) {
+                case TINYINT:
+                case SMALLINT:
+                case MEDIUMINT:
+                case INTEGER:
+                case YEAR: {
+                    int value = resultSet.getInt(index);
+                    if (writePresence(resultSet, out)) {
+                        out.writeInt(value);
+                    }
+                    break;
+                }
+                case BIGINT: {
+                    long value = resultSet.getLong(index);
+                    if (writePresence(resultSet, out)) {
+                        out.writeLong(value);
+                    }
+                    break;
+                }
+                case FLOAT:
+                case DOUBLE:
+                case DOUBLE_PRECISION: {
+                    double value = resultSet.getDouble(index);
+                    if (writePresence(resultSet, out)) {
+                        out.writeDouble(value);
+                    }
+                    break;
+                }
+                case BIT:
+                case BOOLEAN: {
+                    boolean value = resultSet.getBoolean(index);
+                    if (writePresence(resultSet, out)) {
+                        out.writeBoolean(value);
+                    }
+                    break;
+                }
+                case DECIMAL: {
+                    BigDecimal value = resultSet.getBigDecimal(index);
+                    if (writePresence(value, out)) {
+                        writeBytes(value.toPlainString().getBytes(StandardCharsets.US_ASCII), out);
+                    }
+                    break;
+                }
+                case BINARY:
+                case VARBINARY:
+                case TINYBLOB:
+                case BLOB:
+                case MEDIUMBLOB:
+                case LONGBLOB: {
+                    byte[] value = uncompressed(columns[i], resultSet.getBytes(index));
+                    if (writePresence(value, out)) {
+                        writeBytes(value, out);
+                    }
+                    break;
+                }
+                case DATE: {
+                    Date value = resultSet.getDate(index);
+                    if (writePresence(value, out)) {
+                        out.writeLong(value.getTime());
+                    }
+                    break;
+                }
+                case TIME: {
+                    Time value = resultSet.getTime(index);
+                    if (writePresence(value, out)) {
+                        out.writeLong(value.getTime());
+                    }
+                    break;
+                }
+                case DATETIME:
+                case TIMESTAMP: {
+                    Timestamp value = resultSet.getTimestamp(index);
+                    if (writePresence(value, out)) {
+                        out.writeLong(value.getTime());
+                        out.writeInt(value.getNanos());
+                    }
+                    break;
+                }
+                default: {
+                    String value = uncompressed(columns[i], resultSet.getString(index));
+                    if (writePresence(value, out)) {
+                        writeBytes(value.getBytes(StandardCharsets.UTF_8), out);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the current row of a result set into typed values, the same ones {@link #decode(TableColumn[], DataInput, Object[])} returns.
+     *
+     * @param resultSet the result set positioned on a row.
+     * @param columns   the columns to read.
+     * @param indexes   the result set indexes of the columns.
+     * @param values    the array to fill with the values.
+     */
+    void read(ResultSet resultSet, TableColumn[] columns, int[] indexes, Object[] values) throws SQLException {
+        for (int i = 0; i < columns.length; i++) {
+            int index = indexes[i];
+            Object value;
+            switch (columns[i].getType()) {
+                case TINYINT:
+                case SMALLINT:
+                case MEDIUMINT:
+                case INTEGER:
+                case YEAR:
+                    value = resultSet.getInt(index);
+                    break;
+                case BIGINT:
+                    value = resultSet.getLong(index);
+                    break;
+                case FLOAT:
+                case DOUBLE:
+                case DOUBLE_PRECISION:
+                    value = resultSet.getDouble(index);
+                    break;
+                case BIT:
+                case BOOLEAN:
+                    value = resultSet.getBoolean(index);
+                    break;
+                case DECIMAL:
+                    value = resultSet.getBigDecimal(index);
+                    break;
+                case BINARY:
+                case VARBINARY:
+                case TINYBLOB:
+                case BLOB:
+                case MEDIUMBLOB:
+                case LONGBLOB:
+                    value = uncompressed(columns[i], resultSet.getBytes(index));
+                    break;
+                case DATE:
+                    value = resultSet.getDate(index);
+                    break;
+                case TIME:
+                    value = resultSet.getTime(index);
+                    break;
+                case DATETIME:
+                case TIMESTAMP:
+                    value = resultSet.getTimestamp(index);
+                    break;
+                default:
+                    value = uncompressed(columns[i], resultSet.getString(index));
+            }
+            values[i] = resultSet.wasNull() ? null : value;
+        }
+    }
+
+    /**
+     * Decodes a row written by {@link #encode(ResultSet, TableColumn[], int[], DataOutput)}.
+     *
+     * @param columns the columns the row was encoded with.
+     * @param in      the input to read from.
+     * @param values  the array to fill with the decoded values.
+     */
+    void decode(TableColumn[] columns, DataInput in, Object[] values) throws IOException {
+        for (int i = 0; i < columns.length; i++) {
+            if (!in.readBoolean()) {
+                values[i] = null;
+                continue;
+            }
+            switch (columns[i].getType()) {
+                case TINYINT:
+                case SMALLINT:
+                case MEDIUMINT:
+                case INTEGER:
+                case YEAR:
+                    values[i] = in.readInt();
+                    break;
+                case BIGINT:
+                    values[i] = in.readLong();
+                    break;
+                case FLOAT:
+                case DOUBLE:
+                case DOUBLE_PRECISION:
+                    values[i] = in.readDouble();
+                    break;
+                case BIT:
+                case BOOLEAN:
+                    values[i] = in.readBoolean();
+                    break;
+                case DECIMAL:
+                    values[i] = new BigDecimal(new String(readBytes(in), StandardCharsets.US_ASCII));
+                    break;
+                case BINARY:
+                case VARBINARY:
+                case TINYBLOB:
+                case BLOB:
+                case MEDIUMBLOB:
+                case LONGBLOB:
+                    values[i] = readBytes(in);
+                    break;
+                case DATE:
+                    values[i] = new Date(in.readLong());
+                    break;
+                case TIME:
+                    values[i] = new Time(in.readLong());
+                    break;
+                case DATETIME:
+                case TIMESTAMP: {
+                    Timestamp timestamp = new Timestamp(in.readLong());
+                    timestamp.setNanos(in.readInt());
+                    values[i] = timestamp;
+                    break;
+                }
+                default:
+                    values[i] = new String(readBytes(in), StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    /**
+     * Decompresses a value read from a column if the column is compressed.
+     *
+     * @param column the column the value was read from.
+     * @param value  the stored value, possibly null.
+     * @return the raw value.
+     */
+    String uncompressed(TableColumn column, String value) {
+        return value == null || column.getCompression() == null ? value : ColumnCompression.decode(value);
+    }
+
+    /**
+     * Decompresses a value read from a column if the column is compressed.
+     *
+     * @param column the column the value was read from.
+     * @param value  the stored value, possibly null.
+     * @return the raw value.
+     */
+    byte[] uncompressed(TableColumn column, byte[] value) {
+        return value == null || column.getCompression() == null ? value : ColumnCompression.decode(value);
+    }
+
+    private boolean writePresence(ResultSet resultSet, DataOutput out) throws SQLException, IOException {
+        boolean present = !resultSet.wasNull();
+        out.writeBoolean(present);
+        return present;
+    }
+
+    private boolean writePresence(Object value, DataOutput out) throws IOException {
+        boolean present = value != null;
+        out.writeBoolean(present);
+        return present;
+    }
+
+    private void writeBytes(byte[] bytes, DataOutput out) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private byte[] readBytes(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,179 @@
+package net.escosoft.mysqlwrapper;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Dispatches asynchronous statements to the executor service ordered by {@link Priority}, bounding
+ * how many of them may run at once for each class so higher classes always find a free connection.
+ * Work queued longer than the starvation timeout is promoted one class per elapsed timeout.
+ * If the database has a {@link ConcurrencyLimiter}, work takes a permit at submission, so excess work is
+ * rejected right away instead of piling up in the queues.
+ */
+final class Scheduler {
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final ExecutorService executor;
+    private final int[] limits;
+    private final long starvationNanos;
+    private final ConcurrencyLimiter limiter;
+
+    private final List<ArrayDeque<Task<?>>> queues = new ArrayList<>(PRIORITIES.length);
+    private int running;
+
+    Scheduler(ExecutorService executor, int maxPoolSize, int[] reserved, long starvationMillis, ConcurrencyLimiter limiter) {
+        this.executor = executor;
+        this.limiter = limiter;
+        this.limits = new int[PRIORITIES.length];
+        this.starvationNanos = starvationMillis * 1_000_000L;
+
+        int limit = maxPoolSize;
+        for (Priority priority : PRIORITIES) {
+            this.limits[priority.ordinal()] = Math.max(limit, 1);
+            limit -= reserved[priority.ordinal()];
+            this.queues.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Queues a piece of work to be run once a slot is available for its priority class.
+     *
+     * @param priority the priority class.
+     * @param supplier the work to run.
+     * @return a future completed with the work result.
+     * @throws LimitExceededException if the concurrency limit is reached.
+     */
+    <T> CompletableFuture<T> submit(Priority priority, Supplier<T> supplier) {
+        Task<T> task = new Task<>(priority, System.nanoTime(), supplier, new CompletableFuture<>());
+        if (this.limiter != null) {
+            this.limiter.acquire();
+            task.holdsPermit.set(true);
+            // Work cancelled or rejected before running returns its permit here, work that runs does it in run()
+            task.future.whenComplete((result, e) -> {
+                if (task.holdsPermit.compareAndSet(true, false)) {
+                    this.limiter.release(-1, e);
+                }
+            });
+        }
+        synchronized (this) {
+            this.queues.get(priority.ordinal()).add(task);
+        }
+        this.dispatch();
+        return task.future;
+    }
+
+    private void dispatch() {
+        List<Task<?>> ready = new ArrayList<>();
+        synchronized (this) {
+            Task<?> task;
+            while ((task = this.poll()) != null) {
+                this.running++;
+                ready.add(task);
+            }
+        }
+        for (Task<?> task : ready) {
+            try {
+                this.executor.execute(() -> this.run(task));
+            } catch (RejectedExecutionException e) {
+                task.future.completeExceptionally(e);
+                this.finished();
+            }
+        }
+    }
+
+    private Task<?> poll() {
+        long now = System.nanoTime();
+        ArrayDeque<Task<?>> best = null;
+        int bestRank = Integer.MAX_VALUE;
+        long bestEnqueuedAt = Long.MAX_VALUE;
+        for (ArrayDeque<Task<?>> queue : this.queues) {
+            while (!queue.isEmpty() && queue.peek().future.isDone()) {
+                queue.poll();
+            }
+            Task<?> head = queue.peek();
+            if (head == null) {
+                continue;
+            }
+            int rank = this.rank(head, now);
+            if (rank < bestRank || (rank == bestRank && head.enqueuedAt < bestEnqueuedAt)) {
+                best = queue;
+                bestRank = rank;
+                bestEnqueuedAt = head.enqueuedAt;
+            }
+        }
+        // Limits shrink with each lower class, so if the best candidate can't run nothing else can
+        if (best == null || this.running >= this.limits[bestRank]) {
+            return null;
+        }
+        return best.poll();
+    }
+
+    private int rank(Task<?> task, long now) {
+        int rank = task.priority.ordinal();
+        if (this.starvationNanos > 0) {
+            rank -= (int) Math.min(rank, (now - task.enqueuedAt) / this.starvationNanos);
+        }
+        return rank;
+    }
+
+    private <T> void run(Task<T> task) {
+        try {
+            if (task.future.isDone()) {
+                return;
+            }
+            if (this.limiter == null) {
+                task.future.complete(task.supplier.get());
+                return;
+            }
+            // Bulk work runs long by design, so only its failures adapt the limit
+            ConcurrencyLimiter.Permit permit = new ConcurrencyLimiter.Permit(task.priority != Priority.BULK);
+            List<T> result = new ArrayList<>(1);
+            try {
+                this.limiter.runAdmitted(permit, () -> result.add(task.supplier.get()));
+            } catch (Throwable t) {
+                permit.record(-1, t);
+                this.releasePermit(task, permit);
+                throw t;
+            }
+            // The permit is returned before completing, so callers reacting to completion find it available
+            this.releasePermit(task, permit);
+            task.future.complete(result.get(0));
+        } catch (Throwable t) {
+            task.future.completeExceptionally(t);
+        } finally {
+            this.finished();
+        }
+    }
+
+    private void releasePermit(Task<?> task, ConcurrencyLimiter.Permit permit) {
+        if (task.holdsPermit.compareAndSet(true, false)) {
+            this.limiter.release(permit);
+        }
+    }
+
+    private void finished() {
+        synchronized (this) {
+            this.running--;
+        }
+        this.dispatch();
+    }
+
+    @RequiredArgsConstructor
+    private static final class Task<T> {
+
+        private final Priority priority;
+        private final long enqueuedAt;
+        private final Supplier<T> supplier;
+        private final CompletableFuture<T> future;
+        private final AtomicBoolean holdsPermit = new AtomicBoolean();
+    }
+}
@@ -4,14 +4,21 @@ import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import net.escosoft.mysqlwrapper.table.Table;
 import net.escosoft.mysqlwrapper.table.TableColumn;
+import net.escosoft.mysqlwrapper.shard.ShardRouter;
 import net.escosoft.mysqlwrapper.util.Preconditions;
 import net.escosoft.mysqlwrapper.util.StringUtil;
 
 import java.sql.*;
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -19,13 +26,30 @@ import java.util.stream.Stream;
 public final class Statement {
 
     private static final String SET_FORMAT = "%s = ?";
+    private static final int MAX_CACHED_IN_AMOUNT = 4096;
+    private static final Pattern WHERE_PATTERN = Pattern.compile("\\bWHERE\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern INSERT_PATTERN = Pattern.compile("\\s*(INSERT|REPLACE)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern COLUMN_LIST_PATTERN = Pattern.compile("\\s*\\(([^()]*)\\)\\s*");
+    private static final Map<Integer, String> IN_PLACEHOLDERS = new ConcurrentHashMap<>();
 
     private final StringBuilder builder = new StringBuilder();
 
-    private PreparedStatement preparedStatement;
+    private volatile PreparedStatement preparedStatement;
+    private volatile boolean cancelled;
 
     private boolean needsReplacements;
-    private Object[] replacements;
+    private final Parameters parameters = new Parameters();
+    private int fetchSize;
+    private int timeout = -1;
+
+    private Database database;
+    private ShardRouter router;
+    private volatile List<Statement> shardStatements = Collections.emptyList();
+
+    private Table table;
+    private List<TableColumn> insertColumns;
+    private final List<TableColumn> placeholders = new ArrayList<>();
+    private boolean disjunctive;
 
     /**
      * Adds a whole raw statement string to the current PreparedStatement.
@@ -35,12 +59,16 @@ public final class Statement {
     public Statement of(String statement) {
         Preconditions.checkNonNull(statement, "Statement can't be null.");
         this.builder.append(statement);
+        // An explicit column list right after insertInto() replaces the table columns inserted values map to
+        this.insertColumns = this.insertColumns != null ? this.columnList(statement) : null;
+        this.trackPlaceholders(statement);
         return this;
     }
 
     public Statement selectFrom(Table from, String... columns) {
         Preconditions.checkNonNull(from, "Table can't be null.");
         Preconditions.checkNonNull(columns, "Columns can't be null.");
+        this.table = from;
         this.builder.append("SELECT ")
                 .append(StringUtil.join(", ", Arrays.asList(columns)))
                 .append(" FROM ")
@@ -51,6 +79,7 @@ public final class Statement {
     public Statement selectFrom(Table from, TableColumn... columns) {
         Preconditions.checkNonNull(from, "Table can't be null.");
         Preconditions.checkNonNull(columns, "Columns can't be null.");
+        this.table = from;
         this.builder.append("SELECT ")
                 .append(StringUtil.join(", ", Stream.of(columns)
                         .map(column -> "'" + column.getName() + "'")
@@ -63,6 +92,7 @@ public final class Statement {
 
     public Statement selectFrom(Table from, int amount) {
         Preconditions.checkNonNull(from, "Table can't be null.");
+        this.table = from;
         this.builder.append("SELECT ")
                 .append(amount == -1 ? "*" : amount)
                 .append(" FROM ")
@@ -78,6 +108,8 @@ public final class Statement {
         Preconditions.checkNonNull(into, "Table can't be null.");
         this.builder.append("INSERT INTO ")
                 .append(into.getName());
+        this.table = into;
+        this.insertColumns = into.getColumns();
         return this;
     }
 
@@ -85,6 +117,7 @@ public final class Statement {
         Preconditions.checkNonNull(from, "Table can't be null.");
         this.builder.append("DELETE FROM ")
                 .append(from.getName());
+        this.table = from;
         return this;
     }
 
@@ -92,12 +125,18 @@ public final class Statement {
         Preconditions.checkNonNull(table, "Table can't be null.");
         this.builder.append("UPDATE ")
                 .append(table.getName());
+        this.table = table;
         return this;
     }
 
     public Statement set(TableColumn column, String value) {
         Preconditions.checkNonNull(column, "Column can't be null.");
         Preconditions.checkNonNull(value, "Value can't be null.");
+        if (value.trim().equals("?")) {
+            this.placeholders.add(column.getCompression() != null ? column : null);
+        } else {
+            this.trackPlaceholders(value);
+        }
         this.builder.append(" SET ")
                 .append(column.getName())
                 .append(" = ")
@@ -108,6 +147,10 @@ public final class Statement {
     public Statement set(TableColumn... columns) {
         Preconditions.checkNonNull(columns, "Columns can't be null.");
         this.needsReplacements = true;
+        // Assigned columns aren't conditions, so only compressed ones are tracked to keep shard routing out of them
+        for (TableColumn column : columns) {
+            this.placeholders.add(column.getCompression() != null ? column : null);
+        }
         this.builder.append(" SET ")
                 .append(StringUtil.join(", ", Stream.of(columns)
                         .map(column -> String.format(SET_FORMAT, column.getName()))
@@ -118,6 +161,15 @@ public final class Statement {
 
     public Statement values(String valuesString) {
         Preconditions.checkNonNull(valuesString, "Values can't be null.");
+        int amount = placeholderCount(valuesString);
+        if (amount > 0) {
+            this.needsReplacements = true;
+            if (this.insertColumns != null && this.insertColumns.size() == amount) {
+                this.placeholders.addAll(this.insertColumns);
+            } else {
+                this.placeholders.addAll(Collections.nCopies(amount, null));
+            }
+        }
         this.builder.append(" VALUE ")
                 .append(valuesString);
         return this;
@@ -130,7 +182,161 @@ public final class Statement {
 
     public Statement replacements(Object... replacements) {
         Preconditions.checkNonNull(replacements, "Replacements can't be null.");
-        this.replacements = replacements;
+        this.needsReplacements = true;
+        this.parameters.clearOpenRow();
+        for (Object replacement : replacements) {
+            TableColumn column = this.compressedPlaceholder();
+            if (column != null) {
+                this.parameters.add(column, replacement);
+            } else {
+                this.parameters.addObject(replacement);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends an int replacement, bound through {@link PreparedStatement#setInt(int, int)} without boxing.
+     *
+     * @param value the replacement value.
+     */
+    public Statement bindInt(int value) {
+        this.needsReplacements = true;
+        this.parameters.addInt(value);
+        return this;
+    }
+
+    /**
+     * Appends a long replacement, bound through {@link PreparedStatement#setLong(int, long)} without boxing.
+     *
+     * @param value the replacement value.
+     */
+    public Statement bindLong(long value) {
+        this.needsReplacements = true;
+        this.parameters.addLong(value);
+        return this;
+    }
+
+    /**
+     * Appends a double replacement, bound through {@link PreparedStatement#setDouble(int, double)} without boxing.
+     *
+     * @param value the replacement value.
+     */
+    public Statement bindDouble(double value) {
+        this.needsReplacements = true;
+        this.parameters.addDouble(value);
+        return this;
+    }
+
+    /**
+     * Appends a boolean replacement, bound through {@link PreparedStatement#setBoolean(int, boolean)} without boxing.
+     *
+     * @param value the replacement value.
+     */
+    public Statement bindBoolean(boolean value) {
+        this.needsReplacements = true;
+        this.parameters.addBoolean(value);
+        return this;
+    }
+
+    public Statement bindString(String value) {
+        this.needsReplacements = true;
+        TableColumn column = this.compressedPlaceholder();
+        if (column != null) {
+            this.parameters.add(column, value);
+        } else {
+            this.parameters.addString(value);
+        }
+        return this;
+    }
+
+    public Statement bindBytes(byte[] value) {
+        this.needsReplacements = true;
+        TableColumn column = this.compressedPlaceholder();
+        if (column != null) {
+            this.parameters.add(column, value);
+        } else {
+            this.parameters.addBytes(value);
+        }
+        return this;
+    }
+
+    public Statement bindTimestamp(Timestamp value) {
+        this.needsReplacements = true;
+        this.parameters.addTimestamp(value);
+        return this;
+    }
+
+    /**
+     * Appends a replacement bound with the setter matching the {@link net.escosoft.mysqlwrapper.table.TableType}
+     * of a column, falling back to {@link PreparedStatement#setNull(int, int)} for null values.
+     *
+     * @param column the column the value belongs to.
+     * @param value  the replacement value.
+     */
+    public Statement bind(TableColumn column, Object value) {
+        Preconditions.checkNonNull(column, "Column can't be null.");
+        this.needsReplacements = true;
+        this.parameters.add(column, value);
+        return this;
+    }
+
+    /**
+     * Closes the replacements bound so far as a row of a batch, to be run with {@link #executeBatch()}.
+     * Further replacements, including the ones set through {@link #replacements(Object...)}, start the next row.
+     */
+    public Statement addBatch() {
+        this.parameters.endRow();
+        return this;
+    }
+
+    /**
+     * Sets the amount of rows the driver should fetch from the server at once.
+     * Use {@link Integer#MIN_VALUE} to make MySQL stream rows one by one, which keeps
+     * large BLOB/TEXT values out of the heap until they're read.
+     *
+     * @param fetchSize the fetch size hint.
+     */
+    public Statement fetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    /**
+     * Sets a timeout for this statement, overriding the database default one.
+     *
+     * @param seconds the time in seconds, or 0 for no timeout.
+     */
+    public Statement timeout(int seconds) {
+        if (seconds < 0) {
+            throw new IllegalArgumentException("Timeout can't be negative.");
+        }
+        this.timeout = seconds;
+        return this;
+    }
+
+    /**
+     * Runs this statement on a particular database instead of the default one.
+     *
+     * @param database the database to run on.
+     */
+    public Statement using(Database database) {
+        this.database = Preconditions.checkNonNull(database, "Database can't be null.");
+        this.router = null;
+        return this;
+    }
+
+    /**
+     * Runs this statement on the shard owning its table's shard key, or on every shard in parallel
+     * if the key isn't bound through an equality condition or an inserted value. Query consumers are
+     * then called once per shard, never concurrently, and updates report the sum of affected rows.
+     * INSERT and REPLACE statements are never run on every shard, so they're rejected unless they bind the key.
+     *
+     * @param router the shard router.
+     */
+    public Statement using(ShardRouter router) {
+        this.router = Preconditions.checkNonNull(router, "Router can't be null.");
+        this.database = null;
         return this;
     }
 
@@ -142,6 +348,11 @@ public final class Statement {
     public Statement equals(String column, String value) {
         Preconditions.checkNonNull(column, "Column can't be null.");
         Preconditions.checkNonNull(value, "Value can't be null.");
+        if (value.trim().equals("?")) {
+            this.placeholders.add(this.column(column));
+        } else {
+            this.trackPlaceholders(value);
+        }
         this.builder.append(" ")
                 .append(column)
                 .append(" = ")
@@ -165,6 +376,7 @@ public final class Statement {
     public Statement lowerThan(String column, String value) {
         Preconditions.checkNonNull(column, "Column can't be null.");
         Preconditions.checkNonNull(value, "Value can't be null.");
+        this.trackPlaceholders(value);
         this.builder.append(" ")
                 .append(column)
                 .append(" < ")
@@ -188,6 +400,7 @@ public final class Statement {
     public Statement greaterThan(String column, String value) {
         Preconditions.checkNonNull(column, "Column can't be null.");
         Preconditions.checkNonNull(value, "Value can't be null.");
+        this.trackPlaceholders(value);
         this.builder.append(" ")
                 .append(column)
                 .append(" > ")
@@ -211,6 +424,7 @@ public final class Statement {
     public Statement in(String column, String values) {
         Preconditions.checkNonNull(column, "Column can't be null.");
         Preconditions.checkNonNull(values, "Values can't be null.");
+        this.trackPlaceholders(values);
         this.builder.append(" ")
                 .append(column)
                 .append(" IN ")
@@ -222,12 +436,31 @@ public final class Statement {
         return this.in(column.getName(), values);
     }
 
+    /**
+     * Adds an IN condition with an amount of placeholders, to be bound like any other replacement.
+     * Placeholder lists are cached per amount, so reuse a few fixed amounts where possible.
+     *
+     * @param column the column instance.
+     * @param amount the amount of values.
+     */
+    public Statement in(TableColumn column, int amount) {
+        Preconditions.checkNonNull(column, "Column can't be null.");
+        if (amount < 1) {
+            throw new IllegalArgumentException("Amount must be positive.");
+        }
+        this.needsReplacements = true;
+        return this.in(column.getName(), amount <= MAX_CACHED_IN_AMOUNT
+                ? IN_PLACEHOLDERS.computeIfAbsent(amount, Statement::inPlaceholders)
+                : inPlaceholders(amount));
+    }
+
     public Statement and() {
         this.builder.append(" AND");
         return this;
     }
 
     public Statement or() {
+        this.disjunctive = true;
         this.builder.append(" OR");
         return this;
     }
@@ -252,53 +485,419 @@ public final class Statement {
     }
 
     public int executeUpdate() {
-        try (Connection connection = Database.getConnection()) {
-            this.preparedStatement = connection.prepareStatement(this.builder.toString());
-            if (this.needsReplacements) {
-                for (int i = 0; i < this.replacements.length; i++) {
-                    this.preparedStatement.setObject(i + 1, this.replacements[i]);
-                }
-            }
+        this.checkNoBatch();
+        if (this.router != null) {
+            return this.route(Statement::executeUpdate, Integer::sum);
+        }
+        this.checkCancelled();
+        try (Connection connection = this.database().connection()) {
+            this.prepare(connection);
+            this.bindReplacements();
+            this.checkCancelled();
             return this.preparedStatement.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("Error while trying to execute a statement: ", e);
         } finally {
+            this.closeStreams();
             this.done();
         }
     }
 
     public CompletableFuture<Integer> executeUpdateAsync() {
-        return CompletableFuture.supplyAsync(this::executeUpdate, Database.getExecutorService()).exceptionally(e -> {
-            e.printStackTrace();
+        return this.executeUpdateAsync(Priority.NORMAL);
+    }
+
+    /**
+     * Executes this statement asynchronously, scheduled according to a priority class.
+     *
+     * @param priority the priority class.
+     * @return a future completed with the amount of affected rows.
+     * @throws LimitExceededException if the database's concurrency limit is reached.
+     */
+    public CompletableFuture<Integer> executeUpdateAsync(Priority priority) {
+        Preconditions.checkNonNull(priority, "Priority can't be null.");
+        CompletableFuture<Integer> future = this.router != null
+                ? this.routeAsync(priority, Statement::executeUpdate, Integer::sum)
+                : this.database().getScheduler().submit(priority, this::executeUpdate);
+        return this.cancellable(future.exceptionally(e -> {
+            if (!this.cancelled) {
+                e.printStackTrace();
+            }
             return 0;
-        });
+        }));
+    }
+
+    /**
+     * Executes this statement once per batch row added through {@link #addBatch()}. Replacements bound
+     * after the last call are run as a final row, and every row is discarded afterwards so the statement
+     * can be reused for the next batch. Add {@code rewriteBatchedStatements=true} to the database
+     * options to have MySQL receive the whole batch as a single multi-row statement.
+     *
+     * @return the amount of affected rows per batch row.
+     */
+    public int[] executeBatch() {
+        if (this.router != null) {
+            throw new IllegalStateException("Batches can't be routed across shards.");
+        }
+        this.checkCancelled();
+        if (this.parameters.hasOpenRow()) {
+            this.parameters.endRow();
+        }
+        try (Connection connection = this.database().connection()) {
+            this.prepare(connection);
+            for (int row = 0; row < this.parameters.rows(); row++) {
+                this.parameters.bindRow(this.preparedStatement, row);
+                this.preparedStatement.addBatch();
+            }
+            this.checkCancelled();
+            return this.preparedStatement.executeBatch();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error while trying to execute a batch statement: ", e);
+        } finally {
+            this.closeStreams();
+            this.parameters.clear();
+            this.done();
+        }
     }
 
     public void executeQuery(Consumer<QueryResult> consumer) {
         Preconditions.checkNonNull(consumer, "Consumer can't be null.");
-        try (Connection connection = Database.getConnection()) {
-            this.preparedStatement = connection.prepareStatement(this.builder.toString());
-            if (this.needsReplacements) {
-                for (int i = 0; i < this.replacements.length; i++) {
-                    this.preparedStatement.setObject(i + 1, this.replacements[i]);
-                }
-            }
+        this.checkNoBatch();
+        if (this.router != null) {
+            this.route(this.shardQuery(consumer), (first, second) -> null);
+            return;
+        }
+        this.checkCancelled();
+        try (Connection connection = this.database().connection()) {
+            this.prepare(connection);
+            this.bindReplacements();
+            this.checkCancelled();
             try (ResultSet resultSet = this.preparedStatement.executeQuery()) {
                 consumer.accept(new QueryResult(resultSet));
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error while trying to execute a statement: ", e);
+        } finally {
+            this.closeStreams();
         }
     }
 
     public CompletableFuture<Void> executeQueryAsync(Consumer<QueryResult> consumer) {
-        return CompletableFuture.runAsync(() -> this.executeQuery(consumer), Database.getExecutorService()).exceptionally(e -> {
-            e.printStackTrace();
+        return this.executeQueryAsync(consumer, Priority.NORMAL);
+    }
+
+    /**
+     * Executes this query asynchronously, scheduled according to a priority class.
+     *
+     * @param consumer the consumer of the query result.
+     * @param priority the priority class.
+     * @return a future completed once the consumer has run.
+     * @throws LimitExceededException if the database's concurrency limit is reached.
+     */
+    public CompletableFuture<Void> executeQueryAsync(Consumer<QueryResult> consumer, Priority priority) {
+        Preconditions.checkNonNull(priority, "Priority can't be null.");
+        Preconditions.checkNonNull(consumer, "Consumer can't be null.");
+        CompletableFuture<Void> future = this.router != null
+                ? this.routeAsync(priority, this.shardQuery(consumer), (first, second) -> null)
+                : this.database().getScheduler().submit(priority, () -> {
+                    this.executeQuery(consumer);
+                    return (Void) null;
+                });
+        return this.cancellable(future.exceptionally(e -> {
+            if (!this.cancelled) {
+                e.printStackTrace();
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * Runs a query on a shard, handing its result to a consumer shared by every shard one at a time.
+     */
+    private Function<Statement, Void> shardQuery(Consumer<QueryResult> consumer) {
+        Object lock = new Object();
+        return statement -> {
+            statement.executeQuery(result -> {
+                synchronized (lock) {
+                    consumer.accept(result);
+                }
+            });
+            return null;
+        };
+    }
+
+    /**
+     * Executes this query streaming its rows from the server into a {@link MaterializedResult}, which allows
+     * random access and multiple passes. Rows beyond the heap budget are spilled to a temporary file.
+     *
+     * @param heapBudget the estimated amount of bytes rows may take in heap before spilling to disk.
+     * @param columns    the columns selected by the query, used to encode each value.
+     * @return the materialized result, which must be closed.
+     */
+    public MaterializedResult executeMaterialized(long heapBudget, TableColumn... columns) {
+        Preconditions.checkNonNull(columns, "Columns can't be null.");
+        Preconditions.checkLength(columns, 1, "Columns can't be empty.");
+        if (heapBudget < 0) {
+            throw new IllegalArgumentException("Heap budget can't be negative.");
+        }
+        if (this.router != null) {
+            throw new IllegalStateException("Materialized queries can't be routed across shards.");
+        }
+        MaterializedResult[] materialized = new MaterializedResult[1];
+        this.fetchSize(Integer.MIN_VALUE).executeQuery(result ->
+                materialized[0] = MaterializedResult.load(result.getResultSet(), columns.clone(), heapBudget));
+        return materialized[0];
+    }
+
+    /**
+     * Cancels this statement. If it's currently running, the server is asked to abort it
+     * (KILL QUERY) so its connection returns to the pool right away; otherwise it won't run at all.
+     */
+    public void cancel() {
+        this.cancelled = true;
+        for (Statement shardStatement : this.shardStatements) {
+            shardStatement.cancel();
+        }
+        PreparedStatement statement = this.preparedStatement;
+        if (statement == null) {
+            return;
+        }
+        try {
+            if (!statement.isClosed()) {
+                statement.cancel();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error while trying to cancel a statement: ", e);
+        }
+    }
+
+    Database database() {
+        return this.database != null ? this.database : Database.getDefault();
+    }
+
+    boolean isRouted() {
+        return this.router != null;
+    }
+
+    Table getTable() {
+        return this.table;
+    }
+
+    /**
+     * Checks whether the statement built so far has a WHERE clause, so further conditions are appended with AND.
+     */
+    boolean hasWhere() {
+        return WHERE_PATTERN.matcher(this.builder).find();
+    }
+
+    /**
+     * Gets the database the statement runs on, or the shard owning its key if it's routed,
+     * falling back to the first shard when it's scattered.
+     */
+    Database target() {
+        if (this.router == null) {
+            return this.database();
+        }
+        Object key = this.routedKey();
+        return key != null ? this.router.route(key) : this.shards().iterator().next();
+    }
+
+    private Collection<Database> shards() {
+        Collection<Database> shards = this.router.getShards();
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("Router has no shards.");
+        }
+        return shards;
+    }
+
+    private Object shardKey() {
+        // Placeholders written in a way they can't be tracked would make the key index point at another replacement
+        if (this.table == null || this.disjunctive || !this.needsReplacements || this.placeholders.size() != this.parameters.size()) {
+            return null;
+        }
+        TableColumn key = this.table.getShardKey();
+        int index = key == null ? -1 : this.placeholders.indexOf(key);
+        return index == -1 ? null : this.parameters.get(index);
+    }
+
+    /**
+     * Gets the shard key of a routed statement, rejecting inserts that would otherwise be written to every shard.
+     */
+    private Object routedKey() {
+        Object key = this.shardKey();
+        if (key == null && INSERT_PATTERN.matcher(this.builder).lookingAt()) {
+            throw new IllegalStateException("Routed inserts must bind the shard key of their table.");
+        }
+        return key;
+    }
+
+    /**
+     * Gets the column of the placeholder the next replacement is bound to, if it's a compressed one.
+     */
+    private TableColumn compressedPlaceholder() {
+        int index = this.parameters.openRowSize();
+        TableColumn column = index < this.placeholders.size() ? this.placeholders.get(index) : null;
+        return column != null && column.getCompression() != null ? column : null;
+    }
+
+    private TableColumn column(String name) {
+        if (this.table == null) {
             return null;
+        }
+        for (TableColumn column : this.table.getColumns()) {
+            if (column.getName().equals(name)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keeps placeholders written as raw text aligned with the replacements bound to them, without a known column.
+     */
+    private void trackPlaceholders(String text) {
+        this.placeholders.addAll(Collections.nCopies(placeholderCount(text), null));
+    }
+
+    private List<TableColumn> columnList(String statement) {
+        Matcher matcher = COLUMN_LIST_PATTERN.matcher(statement);
+        if (!matcher.matches()) {
+            return null;
+        }
+        List<TableColumn> columns = new ArrayList<>();
+        for (String name : matcher.group(1).split(",")) {
+            columns.add(this.column(name.trim().replace("`", "")));
+        }
+        return columns;
+    }
+
+    private <T> T route(Function<Statement, T> execution, BinaryOperator<T> merger) {
+        List<Statement> statements = this.shardCopies();
+        if (statements.size() == 1) {
+            return execution.apply(statements.get(0));
+        }
+        CompletableFuture<T> result = this.scatter(statements, statement ->
+                CompletableFuture.supplyAsync(() -> execution.apply(statement), Database.getExecutorService()), merger);
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Submits a routed statement to the scheduler of every shard it runs on, merging the results
+     * without blocking any executor thread on another shard.
+     */
+    private <T> CompletableFuture<T> routeAsync(Priority priority, Function<Statement, T> execution, BinaryOperator<T> merger) {
+        return this.scatter(this.shardCopies(), statement ->
+                statement.database().getScheduler().submit(priority, () -> execution.apply(statement)), merger);
+    }
+
+    /**
+     * Copies this statement for the shard owning its key, or for every shard if it has none.
+     */
+    private List<Statement> shardCopies() {
+        this.checkNoBatch();
+        this.checkCancelled();
+        Object key = this.routedKey();
+        List<Statement> statements = new ArrayList<>();
+        if (key != null) {
+            statements.add(this.copy(this.router.route(key)));
+        } else {
+            if (this.parameters.hasStreams()) {
+                this.closeStreams();
+                throw new IllegalStateException("Binary streams can't be scattered across shards.");
+            }
+            for (Database shard : this.shards()) {
+                statements.add(this.copy(shard));
+            }
+        }
+        this.shardStatements = statements;
+        return statements;
+    }
+
+    private <T> CompletableFuture<T> scatter(List<Statement> statements, Function<Statement, CompletableFuture<T>> submission,
+                                             BinaryOperator<T> merger) {
+        CompletableFuture<T> result = null;
+        try {
+            for (Statement statement : statements) {
+                CompletableFuture<T> future = submission.apply(statement);
+                future.whenComplete((value, e) -> {
+                    if (e != null) {
+                        statements.forEach(Statement::cancel);
+                    }
+                });
+                result = result == null ? future : result.thenCombine(future, merger);
+            }
+        } catch (RuntimeException e) {
+            statements.forEach(Statement::cancel);
+            throw e;
+        }
+        return result;
+    }
+
+    Statement copy(Database database) {
+        Statement copy = new Statement();
+        copy.builder.append(this.builder);
+        copy.parameters.addAll(this.parameters);
+        copy.needsReplacements = this.needsReplacements;
+        copy.fetchSize = this.fetchSize;
+        copy.timeout = this.timeout;
+        copy.database = database;
+        return copy;
+    }
+
+    private <T> CompletableFuture<T> cancellable(CompletableFuture<T> future) {
+        future.whenComplete((result, e) -> {
+            if (future.isCancelled()) {
+                this.cancel();
+            }
         });
+        return future;
+    }
+
+    private void prepare(Connection connection) throws SQLException {
+        this.checkCancelled();
+        this.preparedStatement = connection.prepareStatement(this.builder.toString());
+        if (this.fetchSize != 0) {
+            this.preparedStatement.setFetchSize(this.fetchSize);
+        }
+        int timeout = this.timeout != -1 ? this.timeout : this.database().getQueryTimeout();
+        if (timeout > 0) {
+            this.preparedStatement.setQueryTimeout(timeout);
+        }
+    }
+
+    private void bindReplacements() throws SQLException {
+        if (this.needsReplacements) {
+            this.parameters.bind(this.preparedStatement);
+        }
+    }
+
+    private void checkCancelled() {
+        if (this.cancelled) {
+            throw new CancellationException("Statement was cancelled.");
+        }
+    }
+
+    private void checkNoBatch() {
+        if (this.parameters.rows() > 0) {
+            throw new IllegalStateException("Statement has batch rows pending, run them with executeBatch().");
+        }
+    }
+
+    private void closeStreams() {
+        this.parameters.closeStreams();
     }
 
     public void done() {
+        if (this.preparedStatement == null) {
+            return;
+        }
         try {
             if (!this.preparedStatement.isClosed()) {
                 this.preparedStatement.close();
@@ -321,4 +920,33 @@ public final class Statement {
     public static Statement create() {
         return new Statement();
     }
+
+    private static String inPlaceholders(int amount) {
+        StringBuilder builder = new StringBuilder(amount * 2 + 1).append('(');
+        for (int i = 0; i < amount; i++) {
+            builder.append(i == 0 ? "?" : ",?");
+        }
+        return builder.append(')').toString();
+    }
+
+    /**
+     * Counts the placeholders of a raw statement string, skipping quoted literals and identifiers.
+     */
+    private static int placeholderCount(String statement) {
+        int count = 0;
+        char quote = 0;
+        for (int i = 0; i < statement.length(); i++) {
+            char c = statement.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
 }
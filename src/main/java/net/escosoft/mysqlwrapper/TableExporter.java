@@ -0,0 +1,276 @@
+package net.escosoft.mysqlwrapper;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import net.escosoft.mysqlwrapper.table.Table;
+import net.escosoft.mysqlwrapper.table.TableColumn;
+import net.escosoft.mysqlwrapper.util.Preconditions;
+import net.escosoft.mysqlwrapper.util.StringUtil;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Streams a table or a query into a file in constant memory. Rows are fetched one by one from the server
+ * and written through a {@link FileChannel}, optionally compressed.
+ * Table exports can be restricted to a key range, so a large export can be resumed from the last key written.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TableExporter {
+
+    static final int BINARY_MAGIC = 0x4D575231;
+    static final String CSV_NULL = "\\N";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Table table;
+    private final Statement query;
+    private final TableColumn[] columns;
+
+    private ExportFormat format = ExportFormat.CSV;
+    private Compression compression = Compression.NONE;
+    private TableColumn key;
+    private Object after, until;
+    private Database database;
+
+    /**
+     * Sets the format of the exported file.
+     *
+     * @param format the file format.
+     */
+    public TableExporter format(ExportFormat format) {
+        this.format = Preconditions.checkNonNull(format, "Format can't be null.");
+        return this;
+    }
+
+    /**
+     * Sets the compression applied to the exported file.
+     *
+     * @param compression the compression.
+     */
+    public TableExporter compression(Compression compression) {
+        this.compression = Preconditions.checkNonNull(compression, "Compression can't be null.");
+        return this;
+    }
+
+    /**
+     * Restricts a table export to rows whose key is within a range, exporting them ordered by that key.
+     *
+     * @param key   the key column, usually the primary key.
+     * @param after the exclusive lower bound, or null for no lower bound.
+     * @param until the inclusive upper bound, or null for no upper bound.
+     */
+    public TableExporter range(TableColumn key, Object after, Object until) {
+        Preconditions.checkNonNull(key, "Key can't be null.");
+        if (this.table == null) {
+            throw new IllegalStateException("Only table exports can be restricted to a key range.");
+        }
+        this.key = key;
+        this.after = after;
+        this.until = until;
+        return this;
+    }
+
+    /**
+     * Runs a table export on a particular database instead of the default one.
+     * Query exports run on the database their query is bound to.
+     *
+     * @param database the database to run on.
+     */
+    public TableExporter using(Database database) {
+        Preconditions.checkNonNull(database, "Database can't be null.");
+        if (this.table == null) {
+            throw new IllegalStateException("Query exports run on the database of their query.");
+        }
+        this.database = database;
+        return this;
+    }
+
+    /**
+     * Exports every row into a file, replacing it if it already exists.
+     *
+     * @param path the file to write into.
+     * @return the amount of rows exported.
+     */
+    public long export(Path path) {
+        Preconditions.checkNonNull(path, "Path can't be null.");
+        this.checkNotRouted();
+        long[] rows = new long[1];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream out = new BufferedOutputStream(this.compression.wrap(Channels.newOutputStream(channel)), BUFFER_SIZE)) {
+            this.statement().fetchSize(Integer.MIN_VALUE).executeQuery(result -> {
+                try {
+                    rows[0] = this.format == ExportFormat.CSV
+                            ? this.writeCsv(result.getResultSet(), out)
+                            : this.writeBinary(result.getResultSet(), out);
+                } catch (SQLException | IOException e) {
+                    throw new RuntimeException("Error while trying to export rows into '" + path + "': ", e);
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Error while trying to open file '" + path + "': ", e);
+        }
+        return rows[0];
+    }
+
+    /**
+     * Exports every row into a file asynchronously, scheduled as {@link Priority#BULK} work.
+     *
+     * @param path the file to write into.
+     * @return a future completed with the amount of rows exported.
+     */
+    public CompletableFuture<Long> exportAsync(Path path) {
+        this.checkNotRouted();
+        Database database = this.query != null ? this.query.target() : this.database != null ? this.database : Database.getDefault();
+        return database.getScheduler().submit(Priority.BULK, () -> this.export(path));
+    }
+
+    private void checkNotRouted() {
+        if (this.query != null && this.query.isRouted()) {
+            throw new IllegalStateException("Query exports can't be routed across shards.");
+        }
+    }
+
+    private Statement statement() {
+        if (this.query != null) {
+            return this.query;
+        }
+        StringBuilder builder = new StringBuilder("SELECT ");
+        for (int i = 0; i < this.columns.length; i++) {
+            builder.append(i == 0 ? "" : ", ").append(this.columns[i].getName());
+        }
+        builder.append(" FROM ").append(this.table.getName());
+        Statement statement = Statement.create();
+        if (this.database != null) {
+            statement.using(this.database);
+        }
+        if (this.key == null) {
+            return statement.of(builder.toString());
+        }
+
+        if (this.after != null || this.until != null) {
+            builder.append(" WHERE ");
+        }
+        if (this.after != null) {
+            builder.append(this.key.getName()).append(" > ?");
+            statement.bind(this.key, this.after);
+        }
+        if (this.until != null) {
+            builder.append(this.after != null ? " AND " : "").append(this.key.getName()).append(" <= ?");
+            statement.bind(this.key, this.until);
+        }
+        builder.append(" ORDER BY ").append(this.key.getName());
+        return statement.of(builder.toString());
+    }
+
+    private long writeCsv(ResultSet resultSet, OutputStream stream) throws SQLException, IOException {
+        Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+        for (int i = 0; i < this.columns.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvValue(this.columns[i].getName(), writer);
+        }
+        writer.write("\r\n");
+
+        int[] indexes = RowCodec.indexes(resultSet, this.columns);
+        long rows = 0;
+        while (resultSet.next()) {
+            for (int i = 0; i < this.columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                String value;
+                switch (this.columns[i].getType()) {
+                    case BINARY:
+                    case VARBINARY:
+                    case TINYBLOB:
+                    case BLOB:
+                    case MEDIUMBLOB:
+                    case LONGBLOB:
+                        byte[] bytes = RowCodec.uncompressed(this.columns[i], resultSet.getBytes(indexes[i]));
+                        value = bytes == null ? null : StringUtil.toHex(bytes);
+                        break;
+                    default:
+                        value = RowCodec.uncompressed(this.columns[i], resultSet.getString(indexes[i]));
+                }
+                if (value == null) {
+                    writer.write(CSV_NULL);
+                } else {
+                    writeCsvValue(value, writer);
+                }
+            }
+            writer.write("\r\n");
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static void writeCsvValue(String value, Writer writer) throws IOException {
+        boolean quote = value.equals(CSV_NULL);
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private long writeBinary(ResultSet resultSet, OutputStream stream) throws SQLException, IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(BINARY_MAGIC);
+        out.writeInt(this.columns.length);
+        for (TableColumn column : this.columns) {
+            out.writeUTF(column.getName());
+            out.writeUTF(column.getType().name());
+        }
+
+        int[] indexes = RowCodec.indexes(resultSet, this.columns);
+        long rows = 0;
+        while (resultSet.next()) {
+            out.writeBoolean(true);
+            RowCodec.encode(resultSet, this.columns, indexes, out);
+            rows++;
+        }
+        out.writeBoolean(false);
+        out.flush();
+        return rows;
+    }
+
+    /**
+     * Creates a new exporter for every column of a table.
+     *
+     * @param table the table to export.
+     * @return a new table exporter instance.
+     */
+    public static TableExporter of(Table table) {
+        Preconditions.checkNonNull(table, "Table can't be null.");
+        return new TableExporter(table, null, table.getColumns().toArray(new TableColumn[0]));
+    }
+
+    /**
+     * Creates a new exporter for the rows returned by a query.
+     *
+     * @param query   the query to export.
+     * @param columns the columns selected by the query, used to encode each value.
+     * @return a new table exporter instance.
+     */
+    public static TableExporter of(Statement query, TableColumn... columns) {
+        Preconditions.checkNonNull(query, "Query can't be null.");
+        Preconditions.checkNonNull(columns, "Columns can't be null.");
+        Preconditions.checkLength(columns, 1, "Columns can't be empty.");
+        return new TableExporter(null, query, columns);
+    }
+}
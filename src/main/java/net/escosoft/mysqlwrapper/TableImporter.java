@@ -0,0 +1,285 @@
+package net.escosoft.mysqlwrapper;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import net.escosoft.mysqlwrapper.table.Table;
+import net.escosoft.mysqlwrapper.table.TableColumn;
+import net.escosoft.mysqlwrapper.util.Preconditions;
+import net.escosoft.mysqlwrapper.util.StringUtil;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reads a file written by {@link TableExporter} back into a table through batched inserts,
+ * holding at most one batch of rows in memory.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TableImporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Table table;
+
+    private ExportFormat format = ExportFormat.CSV;
+    private Compression compression = Compression.NONE;
+    private int batchSize = 1000;
+    private Database database;
+
+    /**
+     * Sets the format of the imported file.
+     *
+     * @param format the file format.
+     */
+    public TableImporter format(ExportFormat format) {
+        this.format = Preconditions.checkNonNull(format, "Format can't be null.");
+        return this;
+    }
+
+    /**
+     * Sets the compression the imported file was written with.
+     *
+     * @param compression the compression.
+     */
+    public TableImporter compression(Compression compression) {
+        this.compression = Preconditions.checkNonNull(compression, "Compression can't be null.");
+        return this;
+    }
+
+    /**
+     * Sets the amount of rows inserted per batch.
+     *
+     * @param batchSize the amount of rows.
+     */
+    public TableImporter batchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1.");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Runs the import on a particular database instead of the default one.
+     *
+     * @param database the database to run on.
+     */
+    public TableImporter using(Database database) {
+        this.database = Preconditions.checkNonNull(database, "Database can't be null.");
+        return this;
+    }
+
+    /**
+     * Imports every row of a file into the table.
+     *
+     * @param path the file to read from.
+     * @return the amount of rows imported.
+     */
+    public long importFrom(Path path) {
+        Preconditions.checkNonNull(path, "Path can't be null.");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             InputStream in = new BufferedInputStream(this.compression.wrap(Channels.newInputStream(channel)), BUFFER_SIZE)) {
+            return this.format == ExportFormat.CSV ? this.readCsv(in) : this.readBinary(in);
+        } catch (IOException e) {
+            throw new RuntimeException("Error while trying to import rows from '" + path + "': ", e);
+        }
+    }
+
+    /**
+     * Imports every row of a file into the table asynchronously, scheduled as {@link Priority#BULK} work.
+     *
+     * @param path the file to read from.
+     * @return a future completed with the amount of rows imported.
+     */
+    public CompletableFuture<Long> importFromAsync(Path path) {
+        Database database = this.database != null ? this.database : Database.getDefault();
+        return database.getScheduler().submit(Priority.BULK, () -> this.importFrom(path));
+    }
+
+    private long readCsv(InputStream stream) throws IOException {
+        Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8);
+        List<String> header = new ArrayList<>();
+        if (!readCsvLine(reader, header, new boolean[0])) {
+            return 0;
+        }
+        TableColumn[] columns = this.resolve(header);
+        Statement statement = this.insert(columns);
+
+        List<String> values = new ArrayList<>(columns.length);
+        boolean[] quoted = new boolean[columns.length];
+        long rows = 0;
+        while (readCsvLine(reader, values, quoted)) {
+            if (values.size() != columns.length) {
+                throw new IllegalStateException("Row " + (rows + 1) + " has " + values.size() + " values, expected " + columns.length + ".");
+            }
+            for (int i = 0; i < columns.length; i++) {
+                String value = values.get(i);
+                statement.bind(columns[i], !quoted[i] && value.equals(TableExporter.CSV_NULL) ? null : parse(columns[i], value));
+            }
+            rows = this.addRow(statement, rows);
+        }
+        this.flush(statement, rows);
+        return rows;
+    }
+
+    private long readBinary(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != TableExporter.BINARY_MAGIC) {
+            throw new IllegalStateException("File is not a binary table export.");
+        }
+        List<String> header = new ArrayList<>();
+        int columnCount = in.readInt();
+        for (int i = 0; i < columnCount; i++) {
+            header.add(in.readUTF());
+            in.readUTF();
+        }
+        TableColumn[] columns = this.resolve(header);
+        Statement statement = this.insert(columns);
+
+        Object[] values = new Object[columns.length];
+        long rows = 0;
+        while (in.readBoolean()) {
+            RowCodec.decode(columns, in, values);
+            for (int i = 0; i < columns.length; i++) {
+                statement.bind(columns[i], values[i]);
+            }
+            rows = this.addRow(statement, rows);
+        }
+        this.flush(statement, rows);
+        return rows;
+    }
+
+    private long addRow(Statement statement, long rows) {
+        statement.addBatch();
+        if (++rows % this.batchSize == 0) {
+            statement.executeBatch();
+        }
+        return rows;
+    }
+
+    private void flush(Statement statement, long rows) {
+        if (rows % this.batchSize != 0) {
+            statement.executeBatch();
+        }
+    }
+
+    private TableColumn[] resolve(List<String> names) {
+        TableColumn[] columns = new TableColumn[names.size()];
+        for (int i = 0; i < columns.length; i++) {
+            String name = names.get(i);
+            columns[i] = this.table.getColumns().stream()
+                    .filter(column -> column.getName().equals(name))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("Table '" + this.table.getName() + "' has no column '" + name + "'."));
+        }
+        return columns;
+    }
+
+    private Statement insert(TableColumn[] columns) {
+        StringBuilder builder = new StringBuilder(" (");
+        for (int i = 0; i < columns.length; i++) {
+            builder.append(i == 0 ? "" : ", ").append(columns[i].getName());
+        }
+        builder.append(")");
+        Statement statement = Statement.create()
+                .insertInto(this.table)
+                .of(builder.toString())
+                .values(columns.length);
+        return this.database != null ? statement.using(this.database) : statement;
+    }
+
+    private static Object parse(TableColumn column, String value) {
+        switch (column.getType()) {
+            case TINYINT:
+            case SMALLINT:
+            case MEDIUMINT:
+            case INTEGER:
+            case YEAR:
+                return Integer.parseInt(value);
+            case BIGINT:
+                return Long.parseLong(value);
+            case FLOAT:
+            case DOUBLE:
+            case DOUBLE_PRECISION:
+                return Double.parseDouble(value);
+            case BIT:
+            case BOOLEAN:
+                return value.equals("1") || value.equalsIgnoreCase("true");
+            case DECIMAL:
+                return new BigDecimal(value);
+            case BINARY:
+            case VARBINARY:
+            case TINYBLOB:
+            case BLOB:
+            case MEDIUMBLOB:
+            case LONGBLOB:
+                return StringUtil.fromHex(value);
+            default:
+                return value;
+        }
+    }
+
+    private static boolean readCsvLine(Reader reader, List<String> values, boolean[] quoted) throws IOException {
+        values.clear();
+        StringBuilder value = new StringBuilder();
+        boolean inQuotes = false, wasQuoted = false;
+        int c = reader.read();
+        if (c == -1) {
+            return false;
+        }
+        while (true) {
+            if (inQuotes) {
+                if (c == -1) {
+                    throw new EOFException("Unterminated quoted CSV value.");
+                }
+                if (c == '"') {
+                    int next = reader.read();
+                    if (next == '"') {
+                        value.append('"');
+                    } else {
+                        inQuotes = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    value.append((char) c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+                wasQuoted = true;
+            } else if (c == ',' || c == '\n' || c == -1) {
+                if (values.size() < quoted.length) {
+                    quoted[values.size()] = wasQuoted;
+                }
+                values.add(value.toString());
+                value.setLength(0);
+                wasQuoted = false;
+                if (c != ',') {
+                    return true;
+                }
+            } else if (c != '\r') {
+                value.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    /**
+     * Creates a new importer for a table.
+     *
+     * @param table the table to import rows into.
+     * @return a new table importer instance.
+     */
+    public static TableImporter of(Table table) {
+        Preconditions.checkNonNull(table, "Table can't be null.");
+        return new TableImporter(table);
+    }
+}
@@ -0,0 +1,34 @@
+package net.escosoft.mysqlwrapper.codec;
+
+/**
+ * Compression algorithm applied to the values of a column through
+ * {@link net.escosoft.mysqlwrapper.table.TableColumn.Builder#compressed(ColumnCodec, int)}.
+ * Implementations are discovered with {@link java.util.ServiceLoader}, so additional codecs (e.g. LZ4)
+ * can be plugged in by listing them under {@code META-INF/services/net.escosoft.mysqlwrapper.codec.ColumnCodec}.
+ */
+public interface ColumnCodec {
+
+    /**
+     * Gets the id stored in the header of every compressed value, so values can be decoded even if
+     * the column is later moved to another codec. It must be unique and between 1 and 255.
+     *
+     * @return the codec id.
+     */
+    int getId();
+
+    /**
+     * Compresses a value.
+     *
+     * @param value the raw value.
+     * @return the compressed value.
+     */
+    byte[] compress(byte[] value);
+
+    /**
+     * Decompresses a value returned by {@link #compress(byte[])}.
+     *
+     * @param value the compressed value.
+     * @return the raw value.
+     */
+    byte[] decompress(byte[] value);
+}
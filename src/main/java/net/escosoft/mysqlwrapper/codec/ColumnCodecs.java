@@ -0,0 +1,54 @@
+package net.escosoft.mysqlwrapper.codec;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.ServiceLoader;
+
+/**
+ * Registry of the available {@link ColumnCodec} implementations, indexed by id.
+ */
+@UtilityClass
+public class ColumnCodecs {
+
+    private final ColumnCodec DEFLATE = new DeflateCodec();
+    private final ColumnCodec[] CODECS = load();
+
+    /**
+     * Gets the built-in Deflate codec.
+     *
+     * @return the Deflate codec.
+     */
+    public ColumnCodec deflate() {
+        return DEFLATE;
+    }
+
+    /**
+     * Gets a codec out of its id.
+     *
+     * @param id the codec id.
+     * @return the codec instance.
+     */
+    public ColumnCodec byId(int id) {
+        ColumnCodec codec = id > 0 && id < CODECS.length ? CODECS[id] : null;
+        if (codec == null) {
+            throw new IllegalArgumentException("Unknown column codec id: " + id);
+        }
+        return codec;
+    }
+
+    private ColumnCodec[] load() {
+        ColumnCodec[] codecs = new ColumnCodec[256];
+        codecs[DeflateCodec.ID] = DEFLATE;
+        for (ColumnCodec codec : ServiceLoader.load(ColumnCodec.class)) {
+            int id = codec.getId();
+            if (id < 1 || id > 255) {
+                throw new IllegalStateException("Column codec id must be between 1 and 255: " + codec.getClass().getName());
+            }
+            if (codecs[id] != null && codecs[id].getClass() != codec.getClass()) {
+                throw new IllegalStateException("Column codec id " + id + " is already used by " + codecs[id].getClass().getName());
+            }
+            codecs[id] = codec;
+        }
+        return codecs;
+    }
+}
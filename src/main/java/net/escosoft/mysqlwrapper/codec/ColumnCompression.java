@@ -0,0 +1,159 @@
+package net.escosoft.mysqlwrapper.codec;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import net.escosoft.mysqlwrapper.util.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.CRC32;
+
+/**
+ * Compression settings of a column, converting values between their raw and stored forms.
+ * Values shorter than the threshold, or that don't shrink, are stored raw exactly as they'd be without
+ * compression, so rows written before compression was enabled still decode. Compressed binary values are
+ * stored as a frame made of a 4 byte magic, the codec id, the CRC-32 of the payload and the compressed payload.
+ * A raw value is only taken for a frame if both its magic and checksum match, so legacy values are
+ * practically never misread. Compressed text values are stored as a NUL character followed by the Base64
+ * encoded frame, since text columns can't hold arbitrary bytes. Raw values that happen to be a valid frame
+ * are stored framed with codec id 0.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ColumnCompression {
+
+    private static final byte[] MAGIC = {0x00, (byte) 0xC0, 'M', 'W'};
+    private static final int FRAME_LENGTH = MAGIC.length + 5;
+    private static final char TEXT_HEADER = '\u0000';
+    private static final int RAW = 0;
+
+    private final ColumnCodec codec;
+    private final int threshold;
+
+    /**
+     * Converts a raw binary value into its stored form.
+     *
+     * @param value the raw value.
+     * @return the stored value.
+     */
+    public byte[] encode(byte[] value) {
+        if (value.length >= this.threshold) {
+            byte[] compressed = this.codec.compress(value);
+            if (compressed.length + FRAME_LENGTH < value.length) {
+                return frame(this.codec.getId(), compressed);
+            }
+        }
+        return isFramed(value) ? frame(RAW, value) : value;
+    }
+
+    /**
+     * Converts a stored binary value back into its raw form.
+     *
+     * @param value the stored value.
+     * @return the raw value.
+     */
+    public static byte[] decode(byte[] value) {
+        return isFramed(value) ? unframe(value) : value;
+    }
+
+    /**
+     * Converts a raw text value into its stored form.
+     *
+     * @param value the raw value.
+     * @return the stored value.
+     */
+    public String encode(String value) {
+        boolean framed = textFrame(value) != null;
+        if (value.length() < this.threshold && !framed) {
+            return value;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= this.threshold) {
+            byte[] compressed = this.codec.compress(bytes);
+            // Base64 grows the frame by a third, so it only pays off if it still ends up smaller
+            if ((compressed.length + FRAME_LENGTH + 2) / 3 * 4 + 1 < bytes.length) {
+                return TEXT_HEADER + Base64.getEncoder().encodeToString(frame(this.codec.getId(), compressed));
+            }
+        }
+        return framed ? TEXT_HEADER + Base64.getEncoder().encodeToString(frame(RAW, bytes)) : value;
+    }
+
+    /**
+     * Converts a stored text value back into its raw form.
+     *
+     * @param value the stored value.
+     * @return the raw value.
+     */
+    public static String decode(String value) {
+        byte[] frame = textFrame(value);
+        return frame == null ? value : new String(unframe(frame), StandardCharsets.UTF_8);
+    }
+
+    private static boolean isFramed(byte[] value) {
+        if (value.length < FRAME_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (value[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return ByteBuffer.wrap(value, MAGIC.length + 1, 4).getInt() == checksum(value, FRAME_LENGTH);
+    }
+
+    /**
+     * Gets the frame a text value holds, or null if it's a raw value.
+     */
+    private static byte[] textFrame(String value) {
+        if (value.isEmpty() || value.charAt(0) != TEXT_HEADER) {
+            return null;
+        }
+        byte[] frame;
+        try {
+            frame = Base64.getDecoder().decode(value.substring(1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return isFramed(frame) ? frame : null;
+    }
+
+    private static byte[] frame(int id, byte[] payload) {
+        byte[] frame = new byte[payload.length + FRAME_LENGTH];
+        System.arraycopy(payload, 0, frame, FRAME_LENGTH, payload.length);
+        ByteBuffer.wrap(frame)
+                .put(MAGIC)
+                .put((byte) id)
+                .putInt(checksum(frame, FRAME_LENGTH));
+        return frame;
+    }
+
+    private static byte[] unframe(byte[] frame) {
+        int id = frame[MAGIC.length] & 0xFF;
+        byte[] payload = Arrays.copyOfRange(frame, FRAME_LENGTH, frame.length);
+        return id == RAW ? payload : ColumnCodecs.byId(id).decompress(payload);
+    }
+
+    private static int checksum(byte[] bytes, int offset) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, bytes.length - offset);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Creates new compression settings.
+     *
+     * @param codec     the codec compressing values.
+     * @param threshold the minimum size in bytes of a value to be compressed.
+     * @return a new column compression instance.
+     */
+    public static ColumnCompression of(ColumnCodec codec, int threshold) {
+        Preconditions.checkNonNull(codec, "Codec can't be null.");
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold can't be negative.");
+        }
+        return new ColumnCompression(codec, threshold);
+    }
+}
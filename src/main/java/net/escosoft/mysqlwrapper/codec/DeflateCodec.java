@@ -0,0 +1,68 @@
+package net.escosoft.mysqlwrapper.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Built-in {@link ColumnCodec} backed by {@link Deflater}. The raw length is written ahead of the
+ * compressed data so values are inflated into an exactly sized array. Deflaters and inflaters are
+ * reused per thread.
+ */
+final class DeflateCodec implements ColumnCodec {
+
+    static final int ID = 1;
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(Deflater::new);
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public byte[] compress(byte[] value) {
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(value);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(value.length / 2 + 16);
+        out.write(value.length >>> 24);
+        out.write(value.length >>> 16);
+        out.write(value.length >>> 8);
+        out.write(value.length);
+        byte[] buffer = new byte[Math.min(Math.max(value.length, 64), 8 * 1024)];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public byte[] decompress(byte[] value) {
+        if (value.length < 4) {
+            throw new IllegalArgumentException("Value is not deflate compressed.");
+        }
+        int length = (value[0] & 0xFF) << 24 | (value[1] & 0xFF) << 16 | (value[2] & 0xFF) << 8 | value[3] & 0xFF;
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(value, 4, value.length - 4);
+        byte[] raw = new byte[length];
+        try {
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, read, length - read);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += inflated;
+            }
+            return read == length ? raw : Arrays.copyOf(raw, read);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Value is not deflate compressed.", e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package net.escosoft.mysqlwrapper.shard;
+
+import net.escosoft.mysqlwrapper.Database;
+import net.escosoft.mysqlwrapper.util.Preconditions;
+
+import java.util.*;
+
+/**
+ * Routes keys through a consistent-hash ring with virtual nodes. Adding or removing a shard at runtime
+ * only remaps the keys falling on its virtual nodes, about 1/N of them, so shards can be added without a
+ * restart. Take a {@link #snapshot()} before changing the ring to find which keys have to be migrated.
+ */
+public final class ConsistentHashRouter implements ShardRouter {
+
+    private final int virtualNodes;
+
+    private volatile NavigableMap<Long, Database> ring = Collections.emptyNavigableMap();
+    private volatile Map<String, Database> shards = Collections.emptyMap();
+
+    private ConsistentHashRouter(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * Adds a shard to the ring.
+     *
+     * @param name     the unique shard name, its ring positions derive from it.
+     * @param database the shard database.
+     */
+    public synchronized ConsistentHashRouter addShard(String name, Database database) {
+        Preconditions.checkNonNull(name, "Name can't be null.");
+        Preconditions.checkNonNull(database, "Database can't be null.");
+        if (this.shards.containsKey(name)) {
+            throw new IllegalArgumentException("Shard '" + name + "' already exists.");
+        }
+        Map<String, Database> shards = new LinkedHashMap<>(this.shards);
+        shards.put(name, database);
+        this.rebuild(shards);
+        return this;
+    }
+
+    /**
+     * Removes a shard from the ring, remapping its keys to the remaining shards.
+     *
+     * @param name the shard name.
+     */
+    public synchronized ConsistentHashRouter removeShard(String name) {
+        Preconditions.checkNonNull(name, "Name can't be null.");
+        if (!this.shards.containsKey(name)) {
+            throw new IllegalArgumentException("Shard '" + name + "' doesn't exist.");
+        }
+        Map<String, Database> shards = new LinkedHashMap<>(this.shards);
+        shards.remove(name);
+        this.rebuild(shards);
+        return this;
+    }
+
+    /**
+     * Creates an immutable copy of the current ring.
+     *
+     * @return a router with the current shards.
+     */
+    public synchronized ConsistentHashRouter snapshot() {
+        ConsistentHashRouter snapshot = new ConsistentHashRouter(this.virtualNodes);
+        snapshot.ring = this.ring;
+        snapshot.shards = this.shards;
+        return snapshot;
+    }
+
+    @Override
+    public Database route(Object key) {
+        Preconditions.checkNonNull(key, "Key can't be null.");
+        NavigableMap<Long, Database> ring = this.ring;
+        if (ring.isEmpty()) {
+            throw new IllegalStateException("Router has no shards.");
+        }
+        Map.Entry<Long, Database> entry = ring.ceilingEntry(ShardKeys.hash(key));
+        return (entry != null ? entry : ring.firstEntry()).getValue();
+    }
+
+    @Override
+    public Collection<Database> getShards() {
+        return this.shards.values();
+    }
+
+    private void rebuild(Map<String, Database> shards) {
+        NavigableMap<Long, Database> ring = new TreeMap<>();
+        for (Map.Entry<String, Database> shard : shards.entrySet()) {
+            for (int i = 0; i < this.virtualNodes; i++) {
+                ring.put(ShardKeys.hash(shard.getKey() + "#" + i), shard.getValue());
+            }
+        }
+        this.ring = Collections.unmodifiableNavigableMap(ring);
+        this.shards = Collections.unmodifiableMap(shards);
+    }
+
+    /**
+     * Creates a new empty ring.
+     *
+     * @param virtualNodes the amount of ring positions per shard, more spread keys more evenly.
+     * @return a new consistent-hash router instance.
+     */
+    public static ConsistentHashRouter create(int virtualNodes) {
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("Virtual nodes must be at least 1.");
+        }
+        return new ConsistentHashRouter(virtualNodes);
+    }
+
+    public static ConsistentHashRouter create() {
+        return create(160);
+    }
+}
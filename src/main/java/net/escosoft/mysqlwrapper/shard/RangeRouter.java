@@ -0,0 +1,74 @@
+package net.escosoft.mysqlwrapper.shard;
+
+import net.escosoft.mysqlwrapper.Database;
+import net.escosoft.mysqlwrapper.util.Preconditions;
+
+import java.util.*;
+
+/**
+ * Routes keys by range. Each shard owns the keys from its lower bound up to the next shard's lower bound,
+ * so adding a shard at runtime splits the range it falls into.
+ */
+public final class RangeRouter implements ShardRouter {
+
+    private volatile NavigableMap<Comparable<Object>, Database> ranges = Collections.emptyNavigableMap();
+
+    private RangeRouter() {
+    }
+
+    /**
+     * Adds a shard owning the keys from a bound up to the next greater bound.
+     *
+     * @param lowerBound the inclusive lower bound.
+     * @param database   the shard database.
+     */
+    public synchronized RangeRouter addShard(Object lowerBound, Database database) {
+        Preconditions.checkNonNull(lowerBound, "Lower bound can't be null.");
+        Preconditions.checkNonNull(database, "Database can't be null.");
+        NavigableMap<Comparable<Object>, Database> ranges = new TreeMap<>(this.ranges);
+        if (ranges.putIfAbsent(ShardKeys.comparable(lowerBound), database) != null) {
+            throw new IllegalArgumentException("A shard already starts at " + lowerBound + ".");
+        }
+        this.ranges = Collections.unmodifiableNavigableMap(ranges);
+        return this;
+    }
+
+    /**
+     * Removes the shard starting at a bound, merging its keys into the previous range.
+     *
+     * @param lowerBound the inclusive lower bound.
+     */
+    public synchronized RangeRouter removeShard(Object lowerBound) {
+        Preconditions.checkNonNull(lowerBound, "Lower bound can't be null.");
+        NavigableMap<Comparable<Object>, Database> ranges = new TreeMap<>(this.ranges);
+        if (ranges.remove(ShardKeys.comparable(lowerBound)) == null) {
+            throw new IllegalArgumentException("No shard starts at " + lowerBound + ".");
+        }
+        this.ranges = Collections.unmodifiableNavigableMap(ranges);
+        return this;
+    }
+
+    @Override
+    public Database route(Object key) {
+        Preconditions.checkNonNull(key, "Key can't be null.");
+        Map.Entry<Comparable<Object>, Database> entry = this.ranges.floorEntry(ShardKeys.comparable(key));
+        if (entry == null) {
+            throw new IllegalArgumentException("No shard owns key " + key + ".");
+        }
+        return entry.getValue();
+    }
+
+    @Override
+    public Collection<Database> getShards() {
+        return new LinkedHashSet<>(this.ranges.values());
+    }
+
+    /**
+     * Creates a new router without ranges.
+     *
+     * @return a new range router instance.
+     */
+    public static RangeRouter create() {
+        return new RangeRouter();
+    }
+}
@@ -0,0 +1,63 @@
+package net.escosoft.mysqlwrapper.shard;
+
+import lombok.experimental.UtilityClass;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+@UtilityClass
+class ShardKeys {
+
+    private final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Hashes a shard key into 64 well-distributed bits. Integral numbers hash by value,
+     * so an int and a long holding the same key land on the same shard.
+     *
+     * @param key the shard key value.
+     * @return the key hash.
+     */
+    long hash(Object key) {
+        if (key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte) {
+            return mix(((Number) key).longValue());
+        }
+        if (key instanceof UUID) {
+            UUID uuid = (UUID) key;
+            return mix(uuid.getMostSignificantBits() ^ mix(uuid.getLeastSignificantBits()));
+        }
+        byte[] bytes = key instanceof byte[] ? (byte[]) key : key.toString().getBytes(StandardCharsets.UTF_8);
+        long hash = FNV_OFFSET;
+        for (byte b : bytes) {
+            hash ^= b & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Normalizes integral numbers to longs so range bounds and keys of different widths compare.
+     *
+     * @param key the shard key value.
+     * @return the comparable key.
+     */
+    @SuppressWarnings("unchecked")
+    Comparable<Object> comparable(Object key) {
+        if (key instanceof Integer || key instanceof Short || key instanceof Byte) {
+            key = ((Number) key).longValue();
+        }
+        if (!(key instanceof Comparable)) {
+            throw new IllegalArgumentException("Shard key " + key + " is not comparable.");
+        }
+        return (Comparable<Object>) key;
+    }
+
+    private long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
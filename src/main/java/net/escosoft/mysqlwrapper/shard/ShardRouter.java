@@ -0,0 +1,29 @@
+package net.escosoft.mysqlwrapper.shard;
+
+import net.escosoft.mysqlwrapper.Database;
+
+import java.util.Collection;
+
+/**
+ * Maps shard key values to the {@link Database} pool owning them. Statements bound to a router through
+ * {@link net.escosoft.mysqlwrapper.Statement#using(ShardRouter)} run on the owning shard when an equality
+ * condition or inserted value for the table's {@link net.escosoft.mysqlwrapper.table.Table#getShardKey()}
+ * is among their replacements, and on every shard in parallel otherwise. Inserts without the key are rejected.
+ */
+public interface ShardRouter {
+
+    /**
+     * Gets the shard owning a key.
+     *
+     * @param key the shard key value.
+     * @return the owning database.
+     */
+    Database route(Object key);
+
+    /**
+     * Gets every shard, each one once.
+     *
+     * @return the shard databases.
+     */
+    Collection<Database> getShards();
+}
@@ -24,4 +24,14 @@ public interface Table {
      * @return a list with all table option strings.
      */
     List<String> getOptions();
+
+    /**
+     * Gets the column statements on this table are routed by when run through a
+     * {@link net.escosoft.mysqlwrapper.shard.ShardRouter}.
+     *
+     * @return the shard key column, or null if the table isn't sharded.
+     */
+    default TableColumn getShardKey() {
+        return null;
+    }
 }
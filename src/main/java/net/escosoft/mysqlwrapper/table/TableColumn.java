@@ -1,6 +1,8 @@
 package net.escosoft.mysqlwrapper.table;
 
 import lombok.*;
+import net.escosoft.mysqlwrapper.codec.ColumnCodec;
+import net.escosoft.mysqlwrapper.codec.ColumnCompression;
 import net.escosoft.mysqlwrapper.util.Preconditions;
 
 import java.util.StringJoiner;
@@ -14,6 +16,7 @@ public final class TableColumn {
     private String[] typeData;
     private boolean notNull;
     private String defaultValue;
+    private ColumnCompression compression;
 
     private TableColumn(String name, TableType type) {
         this.name = Preconditions.checkNonNull(name, "Name can't be null.");
@@ -83,6 +86,32 @@ public final class TableColumn {
             return this;
         }
 
+        /**
+         * Compresses the values of a VARCHAR, VARBINARY, TEXT or BLOB column transparently when they're bound
+         * and read. Compressed text values are stored Base64 encoded, so binary columns compress better.
+         *
+         * @param codec     the codec to compress values with, such as {@link net.escosoft.mysqlwrapper.codec.ColumnCodecs#deflate()}.
+         * @param threshold the minimum size in bytes of a value to be compressed, smaller ones are stored raw.
+         */
+        public Builder compressed(ColumnCodec codec, int threshold) {
+            switch (this.column.type) {
+                case VARCHAR:
+                case VARBINARY:
+                case TINYTEXT:
+                case TEXT:
+                case MEDIUMTEXT:
+                case LONGTEXT:
+                case TINYBLOB:
+                case BLOB:
+                case MEDIUMBLOB:
+                case LONGBLOB:
+                    this.column.compression = ColumnCompression.of(codec, threshold);
+                    return this;
+                default:
+                    throw new IllegalArgumentException("Only VARCHAR, VARBINARY, TEXT and BLOB columns can be compressed.");
+            }
+        }
+
         @Override
         public TableColumn build() {
             return this.column;
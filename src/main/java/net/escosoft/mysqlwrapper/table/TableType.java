@@ -1,36 +1,48 @@
 package net.escosoft.mysqlwrapper.table;
 
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.sql.Types;
+
+@Getter
+@AllArgsConstructor
 public enum TableType {
-    CHAR,
-    VARCHAR,
-    BINARY,
-    VARBINARY,
-    TINYBLOB,
-    TINYTEXT,
-    TEXT,
-    BLOB,
-    MEDIUMTEXT,
-    MEDIUMBLOB,
-    LONGTEXT,
-    LONGBLOB,
-    ENUM,
-    SET,
+    CHAR(Types.CHAR),
+    VARCHAR(Types.VARCHAR),
+    BINARY(Types.BINARY),
+    VARBINARY(Types.VARBINARY),
+    TINYBLOB(Types.VARBINARY),
+    TINYTEXT(Types.VARCHAR),
+    TEXT(Types.LONGVARCHAR),
+    BLOB(Types.LONGVARBINARY),
+    MEDIUMTEXT(Types.LONGVARCHAR),
+    MEDIUMBLOB(Types.LONGVARBINARY),
+    LONGTEXT(Types.LONGVARCHAR),
+    LONGBLOB(Types.LONGVARBINARY),
+    ENUM(Types.CHAR),
+    SET(Types.CHAR),
+
+    BIT(Types.BIT),
+    TINYINT(Types.TINYINT),
+    BOOLEAN(Types.BOOLEAN),
+    SMALLINT(Types.SMALLINT),
+    MEDIUMINT(Types.INTEGER),
+    INTEGER(Types.INTEGER),
+    BIGINT(Types.BIGINT),
+    FLOAT(Types.REAL),
+    DOUBLE(Types.DOUBLE),
+    DOUBLE_PRECISION(Types.DOUBLE),
+    DECIMAL(Types.DECIMAL),
 
-    BIT,
-    TINYINT,
-    BOOLEAN,
-    SMALLINT,
-    MEDIUMINT,
-    INTEGER,
-    BIGINT,
-    FLOAT,
-    DOUBLE,
-    DOUBLE_PRECISION,
-    DECIMAL,
+    DATE(Types.DATE),
+    DATETIME(Types.TIMESTAMP),
+    TIMESTAMP(Types.TIMESTAMP),
+    TIME(Types.TIME),
+    YEAR(Types.DATE);
 
-    DATE,
-    DATETIME,
-    TIMESTAMP,
-    TIME,
-    YEAR;
+    /**
+     * The {@link Types} constant the JDBC driver uses for this type.
+     */
+    private final int sqlType;
 }
@@ -0,0 +1,98 @@
+package net.escosoft.mysqlwrapper.testing;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+
+/**
+ * Simulated connection handed out by {@link FakeDataSource}. Only the behavior the pool and
+ * statements rely on is modelled; every other method returns its type's default value.
+ */
+final class FakeConnection implements InvocationHandler {
+
+    private boolean closed;
+    private boolean autoCommit = true;
+    private int transactionIsolation = Connection.TRANSACTION_REPEATABLE_READ;
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "prepareStatement":
+            case "prepareCall":
+                return FakeStatement.create((Connection) proxy, (String) args[0]);
+            case "createStatement":
+                return FakeStatement.create((Connection) proxy, null);
+            case "isValid":
+                return !this.closed;
+            case "isClosed":
+                return this.closed;
+            case "close":
+            case "abort":
+                if (!this.closed) {
+                    this.closed = true;
+                    FakeDataSource.closed();
+                }
+                return null;
+            case "getAutoCommit":
+                return this.autoCommit;
+            case "setAutoCommit":
+                this.autoCommit = (Boolean) args[0];
+                return null;
+            case "getTransactionIsolation":
+                return this.transactionIsolation;
+            case "setTransactionIsolation":
+                this.transactionIsolation = (Integer) args[0];
+                return null;
+            case "isWrapperFor":
+                return false;
+            default:
+                return handleObjectMethod(proxy, method, args);
+        }
+    }
+
+    static Object handleObjectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "Fake" + method.getDeclaringClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+            default:
+                return defaultValue(method.getReturnType());
+        }
+    }
+
+    static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0D;
+        }
+        if (type == float.class) {
+            return 0F;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        return 0;
+    }
+
+    static Connection create() {
+        return (Connection) Proxy.newProxyInstance(FakeConnection.class.getClassLoader(), new Class<?>[]{Connection.class}, new FakeConnection());
+    }
+}
@@ -0,0 +1,128 @@
+package net.escosoft.mysqlwrapper.testing;
+
+import net.escosoft.mysqlwrapper.util.Preconditions;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * In-process data source that simulates a MySQL server without any network, so the wrapper's pool and
+ * executor behavior can be load tested offline. Plug it in through
+ * {@code Database.dataSourceName(FakeDataSource.class.getName())}; credentials are still required but ignored.
+ * Query behaviors are registered globally through {@link #register(FakeQuery)}.
+ */
+public final class FakeDataSource implements DataSource {
+
+    private static final List<FakeQuery> QUERIES = new CopyOnWriteArrayList<>();
+    private static final FakeQuery DEFAULT_QUERY = FakeQuery.any();
+    private static final AtomicLong EXECUTIONS = new AtomicLong();
+    private static final AtomicLong OPEN_CONNECTIONS = new AtomicLong();
+
+    private PrintWriter logWriter;
+    private int loginTimeout;
+
+    /**
+     * Registers a query behavior. Behaviors are matched in registration order.
+     *
+     * @param query the query behavior.
+     */
+    public static void register(FakeQuery query) {
+        QUERIES.add(Preconditions.checkNonNull(query, "Query can't be null."));
+    }
+
+    /**
+     * Removes every registered query behavior and resets counters.
+     */
+    public static void reset() {
+        QUERIES.clear();
+        EXECUTIONS.set(0);
+    }
+
+    /**
+     * Gets the amount of statements executed so far.
+     *
+     * @return the amount of executions.
+     */
+    public static long getExecutions() {
+        return EXECUTIONS.get();
+    }
+
+    /**
+     * Gets the amount of physical connections currently open.
+     *
+     * @return the amount of open connections.
+     */
+    public static long getOpenConnections() {
+        return OPEN_CONNECTIONS.get();
+    }
+
+    static FakeQuery find(String sql) {
+        for (FakeQuery query : QUERIES) {
+            if (query.matches(sql)) {
+                return query;
+            }
+        }
+        return DEFAULT_QUERY;
+    }
+
+    static void executed() {
+        EXECUTIONS.incrementAndGet();
+    }
+
+    static void closed() {
+        OPEN_CONNECTIONS.decrementAndGet();
+    }
+
+    @Override
+    public Connection getConnection() {
+        OPEN_CONNECTIONS.incrementAndGet();
+        return FakeConnection.create();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) {
+        return this.getConnection();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return this.logWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        this.logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        this.loginTimeout = seconds;
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return this.loginTimeout;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) throws SQLException {
+        throw new SQLException("Not a wrapper.");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> type) {
+        return false;
+    }
+}
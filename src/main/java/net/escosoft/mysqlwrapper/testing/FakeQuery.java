@@ -0,0 +1,105 @@
+package net.escosoft.mysqlwrapper.testing;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import net.escosoft.mysqlwrapper.util.Preconditions;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+
+/**
+ * Behavior of the queries run against a {@link FakeDataSource} whose SQL contains a fragment:
+ * how long they take, how often they fail and which rows they return.
+ */
+@Getter(AccessLevel.PACKAGE)
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class FakeQuery {
+
+    private static final String[] NO_COLUMNS = new String[0];
+
+    private final String fragment;
+
+    private LatencyModel latency = LatencyModel.none();
+    private double failureRate;
+    private int updateCount = 1;
+    private String[] columns = NO_COLUMNS;
+    private int rows;
+    private IntFunction<Object[]> rowGenerator;
+
+    /**
+     * Sets the distribution each execution's server time is sampled from.
+     *
+     * @param latency the latency model.
+     */
+    public FakeQuery latency(LatencyModel latency) {
+        this.latency = Preconditions.checkNonNull(latency, "Latency can't be null.");
+        return this;
+    }
+
+    /**
+     * Sets the probability of an execution failing with an {@link java.sql.SQLException}.
+     *
+     * @param failureRate the probability between 0 and 1.
+     */
+    public FakeQuery failureRate(double failureRate) {
+        if (failureRate < 0 || failureRate > 1) {
+            throw new IllegalArgumentException("Failure rate must be between 0 and 1.");
+        }
+        this.failureRate = failureRate;
+        return this;
+    }
+
+    /**
+     * Sets the amount of affected rows updates report.
+     *
+     * @param updateCount the amount of affected rows.
+     */
+    public FakeQuery updateCount(int updateCount) {
+        this.updateCount = updateCount;
+        return this;
+    }
+
+    /**
+     * Sets the shape of the result set queries return.
+     *
+     * @param rows         the amount of rows.
+     * @param rowGenerator the generator of each row's values, given the row index.
+     * @param columns      the column labels.
+     */
+    public FakeQuery returns(int rows, IntFunction<Object[]> rowGenerator, String... columns) {
+        Preconditions.checkNonNull(rowGenerator, "Row generator can't be null.");
+        Preconditions.checkNonNull(columns, "Columns can't be null.");
+        this.rows = rows;
+        this.rowGenerator = rowGenerator;
+        this.columns = columns;
+        return this;
+    }
+
+    boolean matches(String sql) {
+        return this.fragment == null || sql.contains(this.fragment);
+    }
+
+    boolean shouldFail() {
+        return this.failureRate > 0 && ThreadLocalRandom.current().nextDouble() < this.failureRate;
+    }
+
+    /**
+     * Creates a behavior for queries whose SQL contains a fragment.
+     *
+     * @param fragment the SQL fragment to match.
+     * @return a new fake query instance.
+     */
+    public static FakeQuery matching(String fragment) {
+        return new FakeQuery(Preconditions.checkNonNull(fragment, "Fragment can't be null."));
+    }
+
+    /**
+     * Creates a behavior matching every query.
+     *
+     * @return a new fake query instance.
+     */
+    public static FakeQuery any() {
+        return new FakeQuery(null);
+    }
+}
@@ -0,0 +1,201 @@
+package net.escosoft.mysqlwrapper.testing;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+
+/**
+ * Simulated forward-only result set generating the rows of a {@link FakeQuery} lazily,
+ * so huge result shapes don't need to fit in memory.
+ */
+final class FakeResultSet implements InvocationHandler {
+
+    private final FakeQuery query;
+
+    private int row = -1;
+    private Object[] current;
+    private boolean wasNull;
+    private boolean closed;
+
+    private FakeResultSet(FakeQuery query) {
+        this.query = query;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+        String name = method.getName();
+        switch (name) {
+            case "next":
+                if (this.row + 1 < this.query.getRows()) {
+                    this.current = this.query.getRowGenerator().apply(++this.row);
+                    return true;
+                }
+                this.row = this.query.getRows();
+                this.current = null;
+                return false;
+            case "findColumn":
+                return this.findColumn((String) args[0]);
+            case "wasNull":
+                return this.wasNull;
+            case "getMetaData":
+                return this.metaData();
+            case "getRow":
+                return this.current == null ? 0 : this.row + 1;
+            case "close":
+                this.closed = true;
+                return null;
+            case "isClosed":
+                return this.closed;
+            case "isWrapperFor":
+                return false;
+            default:
+                if (name.startsWith("get") && args != null && args.length > 0 && (args[0] instanceof String || args[0] instanceof Integer)) {
+                    Class<?> type = name.equals("getObject") && args.length > 1 && args[1] instanceof Class ? (Class<?>) args[1] : method.getReturnType();
+                    return this.get(args[0], type);
+                }
+                return FakeConnection.handleObjectMethod(proxy, method, args);
+        }
+    }
+
+    private int findColumn(String label) throws SQLException {
+        String[] columns = this.query.getColumns();
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equalsIgnoreCase(label)) {
+                return i + 1;
+            }
+        }
+        throw new SQLException("Column '" + label + "' not found.");
+    }
+
+    private Object get(Object column, Class<?> type) throws SQLException {
+        if (this.current == null) {
+            throw new SQLException("Result set is not positioned on a row.");
+        }
+        int index = column instanceof String ? this.findColumn((String) column) : (Integer) column;
+        if (index < 1 || index > this.current.length) {
+            throw new SQLException("Column index " + index + " out of range.");
+        }
+        Object value = this.current[index - 1];
+        this.wasNull = value == null;
+        return value == null ? FakeConnection.defaultValue(type) : convert(value, type);
+    }
+
+    private static Object convert(Object value, Class<?> type) throws SQLException {
+        if (type == Object.class || type.isInstance(value)) {
+            return value;
+        }
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            if (type == int.class || type == Integer.class) {
+                return number.intValue();
+            }
+            if (type == long.class || type == Long.class) {
+                return number.longValue();
+            }
+            if (type == double.class || type == Double.class) {
+                return number.doubleValue();
+            }
+            if (type == float.class || type == Float.class) {
+                return number.floatValue();
+            }
+            if (type == short.class || type == Short.class) {
+                return number.shortValue();
+            }
+            if (type == byte.class || type == Byte.class) {
+                return number.byteValue();
+            }
+            if (type == boolean.class || type == Boolean.class) {
+                return number.longValue() != 0;
+            }
+            if (type == BigDecimal.class) {
+                return new BigDecimal(number.toString());
+            }
+            if (type == Timestamp.class) {
+                return new Timestamp(number.longValue());
+            }
+            if (type == Date.class) {
+                return new Date(number.longValue());
+            }
+            if (type == Time.class) {
+                return new Time(number.longValue());
+            }
+        }
+        if (value instanceof java.util.Date) {
+            long millis = ((java.util.Date) value).getTime();
+            if (type == Timestamp.class) {
+                return new Timestamp(millis);
+            }
+            if (type == Date.class) {
+                return new Date(millis);
+            }
+            if (type == Time.class) {
+                return new Time(millis);
+            }
+            if (type == long.class || type == Long.class) {
+                return millis;
+            }
+        }
+        if (value instanceof Boolean && (type == boolean.class || type == Boolean.class)) {
+            return value;
+        }
+        byte[] bytes = value instanceof byte[] ? (byte[]) value : null;
+        String string = bytes != null ? new String(bytes, StandardCharsets.UTF_8) : value.toString();
+        if (type == String.class) {
+            return string;
+        }
+        if (type == byte[].class) {
+            return bytes != null ? bytes : string.getBytes(StandardCharsets.UTF_8);
+        }
+        if (type == InputStream.class) {
+            return new ByteArrayInputStream(bytes != null ? bytes : string.getBytes(StandardCharsets.UTF_8));
+        }
+        if (type == java.io.Reader.class) {
+            return new StringReader(string);
+        }
+        try {
+            if (type == int.class || type == Integer.class) {
+                return Integer.parseInt(string);
+            }
+            if (type == long.class || type == Long.class) {
+                return Long.parseLong(string);
+            }
+            if (type == double.class || type == Double.class) {
+                return Double.parseDouble(string);
+            }
+            if (type == boolean.class || type == Boolean.class) {
+                return string.equals("1") || string.equalsIgnoreCase("true");
+            }
+            if (type == BigDecimal.class) {
+                return new BigDecimal(string);
+            }
+        } catch (NumberFormatException e) {
+            throw new SQLException("Can't convert '" + string + "' to " + type.getSimpleName() + ".", e);
+        }
+        throw new SQLException("Can't convert " + value.getClass().getSimpleName() + " to " + type.getSimpleName() + ".");
+    }
+
+    private ResultSetMetaData metaData() {
+        String[] columns = this.query.getColumns();
+        return (ResultSetMetaData) Proxy.newProxyInstance(FakeResultSet.class.getClassLoader(), new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return columns.length;
+                case "getColumnName":
+                case "getColumnLabel":
+                    return columns[(Integer) args[0] - 1];
+                default:
+                    return FakeConnection.handleObjectMethod(proxy, method, args);
+            }
+        });
+    }
+
+    static ResultSet create(FakeQuery query) {
+        return (ResultSet) Proxy.newProxyInstance(FakeResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, new FakeResultSet(query));
+    }
+}
@@ -0,0 +1,119 @@
+package net.escosoft.mysqlwrapper.testing;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulated statement whose executions wait for a sampled latency. Honors query timeouts and
+ * {@link java.sql.Statement#cancel()} the same way MySQL reports them.
+ */
+final class FakeStatement implements InvocationHandler {
+
+    private static final String INTERRUPTED_STATE = "70100";
+    private static final int INTERRUPTED_CODE = 1317;
+
+    private final Connection connection;
+    private final String sql;
+
+    private volatile CountDownLatch running;
+    private boolean closed;
+    private int timeout;
+    private int batch;
+
+    private FakeStatement(Connection connection, String sql) {
+        this.connection = connection;
+        this.sql = sql;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+        switch (method.getName()) {
+            case "executeQuery":
+                return FakeResultSet.create(this.execute(args));
+            case "executeUpdate":
+                return this.execute(args).getUpdateCount();
+            case "executeLargeUpdate":
+                return (long) this.execute(args).getUpdateCount();
+            case "execute":
+                return this.execute(args).getColumns().length > 0;
+            case "addBatch":
+                this.batch++;
+                return null;
+            case "clearBatch":
+                this.batch = 0;
+                return null;
+            case "executeBatch": {
+                int[] counts = new int[this.batch];
+                Arrays.fill(counts, this.execute(null).getUpdateCount());
+                this.batch = 0;
+                return counts;
+            }
+            case "cancel": {
+                CountDownLatch running = this.running;
+                if (running != null) {
+                    running.countDown();
+                }
+                return null;
+            }
+            case "setQueryTimeout":
+                this.timeout = (Integer) args[0];
+                return null;
+            case "getQueryTimeout":
+                return this.timeout;
+            case "getConnection":
+                return this.connection;
+            case "getUpdateCount":
+                return -1;
+            case "close":
+                this.closed = true;
+                return null;
+            case "isClosed":
+                return this.closed;
+            case "isWrapperFor":
+                return false;
+            default:
+                return FakeConnection.handleObjectMethod(proxy, method, args);
+        }
+    }
+
+    private FakeQuery execute(Object[] args) throws SQLException {
+        if (this.closed) {
+            throw new SQLException("Statement is closed.");
+        }
+        String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : this.sql;
+        FakeQuery query = FakeDataSource.find(sql == null ? "" : sql);
+        FakeDataSource.executed();
+
+        long latency = query.getLatency().nextNanos();
+        long limit = this.timeout > 0 ? TimeUnit.SECONDS.toNanos(this.timeout) : Long.MAX_VALUE;
+        CountDownLatch running = new CountDownLatch(1);
+        this.running = running;
+        try {
+            if (running.await(Math.min(latency, limit), TimeUnit.NANOSECONDS)) {
+                throw new SQLException("Query execution was interrupted", INTERRUPTED_STATE, INTERRUPTED_CODE);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Query execution was interrupted", INTERRUPTED_STATE, INTERRUPTED_CODE);
+        } finally {
+            this.running = null;
+        }
+        if (latency > limit) {
+            throw new SQLTimeoutException("Statement cancelled due to timeout or client request");
+        }
+        if (query.shouldFail()) {
+            throw new SQLException("Simulated failure.");
+        }
+        return query;
+    }
+
+    static PreparedStatement create(Connection connection, String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(FakeStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class, CallableStatement.class}, new FakeStatement(connection, sql));
+    }
+}
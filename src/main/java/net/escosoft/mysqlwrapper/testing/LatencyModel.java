@@ -0,0 +1,46 @@
+package net.escosoft.mysqlwrapper.testing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distribution the {@link FakeDataSource} samples each simulated query's server time from.
+ */
+@FunctionalInterface
+public interface LatencyModel {
+
+    /**
+     * Samples the time a single query takes to run.
+     *
+     * @return the time in nanoseconds.
+     */
+    long nextNanos();
+
+    static LatencyModel none() {
+        return () -> 0;
+    }
+
+    static LatencyModel fixed(double millis) {
+        long nanos = (long) (millis * 1_000_000);
+        return () -> nanos;
+    }
+
+    static LatencyModel uniform(double minMillis, double maxMillis) {
+        return () -> (long) (ThreadLocalRandom.current().nextDouble(minMillis, maxMillis) * 1_000_000);
+    }
+
+    static LatencyModel exponential(double meanMillis) {
+        return () -> (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanMillis * 1_000_000);
+    }
+
+    /**
+     * A long-tailed distribution, usually the closest to real query latencies.
+     *
+     * @param medianMillis the median time in milliseconds.
+     * @param sigma        the standard deviation of the underlying normal distribution.
+     * @return a new latency model.
+     */
+    static LatencyModel logNormal(double medianMillis, double sigma) {
+        double mu = Math.log(medianMillis);
+        return () -> (long) (Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()) * 1_000_000);
+    }
+}
@@ -0,0 +1,49 @@
+package net.escosoft.mysqlwrapper.testing;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.escosoft.mysqlwrapper.util.Histogram;
+
+/**
+ * Outcome of a {@link LoadRunner} run. Latencies are measured from each request's scheduled start,
+ * so queueing caused by a saturated pool or executor is included. Requests rejected by a
+ * {@link net.escosoft.mysqlwrapper.ConcurrencyLimiter} are counted as rejections, not as failures.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class LoadReport {
+
+    private final long requests;
+    private final long failures;
+    private final long rejections;
+    private final long elapsedNanos;
+    private final Histogram latencyNanos;
+    private final Histogram poolWaitNanos;
+
+    /**
+     * Gets the amount of requests completed per second, successfully or not.
+     *
+     * @return the throughput.
+     */
+    public double getThroughput() {
+        return this.elapsedNanos == 0 ? 0 : this.requests * 1_000_000_000D / this.elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder()
+                .append(String.format("requests=%d failures=%d rejections=%d throughput=%.1f/s", this.requests, this.failures, this.rejections, this.getThroughput()))
+                .append(format(" latency", this.latencyNanos));
+        if (this.poolWaitNanos != null) {
+            builder.append(format(" poolWait", this.poolWaitNanos));
+        }
+        return builder.toString();
+    }
+
+    private static String format(String name, Histogram histogram) {
+        return String.format("%s[p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms]", name,
+                histogram.getPercentile(50) / 1e6, histogram.getPercentile(90) / 1e6, histogram.getPercentile(99) / 1e6,
+                histogram.getPercentile(99.9) / 1e6, histogram.getMax() / 1e6);
+    }
+}
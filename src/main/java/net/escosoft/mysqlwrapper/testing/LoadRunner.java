@@ -0,0 +1,190 @@
+package net.escosoft.mysqlwrapper.testing;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import net.escosoft.mysqlwrapper.LimitExceededException;
+import net.escosoft.mysqlwrapper.QueryResult;
+import net.escosoft.mysqlwrapper.Statement;
+import net.escosoft.mysqlwrapper.util.Histogram;
+import net.escosoft.mysqlwrapper.util.Preconditions;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Drives statements against a connected database at a target rate and reports throughput, latency
+ * and pool wait percentiles. Requests are issued open-loop on a fixed schedule, so a slow pool shows up
+ * as growing latency instead of a lower request rate. Usually paired with {@link FakeDataSource}
+ * to size executors and pools offline.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class LoadRunner {
+
+    private final Supplier<Statement> statements;
+    private final boolean query;
+
+    private int qps = 100;
+    private Duration duration = Duration.ofSeconds(10);
+    private boolean async;
+    private int threads = 16;
+    private PoolWaitRecorder poolWait;
+
+    /**
+     * Sets the target amount of requests issued per second.
+     *
+     * @param qps the target rate.
+     */
+    public LoadRunner qps(int qps) {
+        if (qps < 1) {
+            throw new IllegalArgumentException("QPS must be at least 1.");
+        }
+        this.qps = qps;
+        return this;
+    }
+
+    /**
+     * Sets for how long requests are issued.
+     *
+     * @param duration the run duration.
+     */
+    public LoadRunner duration(Duration duration) {
+        this.duration = Preconditions.checkNonNull(duration, "Duration can't be null.");
+        return this;
+    }
+
+    /**
+     * Makes requests go through the asynchronous execute methods instead of the synchronous ones.
+     * Asynchronous failures are swallowed by {@link Statement}, so they aren't counted, but rejections are.
+     *
+     * @param async whether to use the asynchronous path.
+     */
+    public LoadRunner async(boolean async) {
+        this.async = async;
+        return this;
+    }
+
+    /**
+     * Sets the amount of client threads calling the synchronous execute methods.
+     *
+     * @param threads the amount of threads.
+     */
+    public LoadRunner threads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be at least 1.");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Sets the recorder installed on the database to report pool wait percentiles from.
+     *
+     * @param poolWait the pool wait recorder.
+     */
+    public LoadRunner poolWait(PoolWaitRecorder poolWait) {
+        this.poolWait = Preconditions.checkNonNull(poolWait, "Pool wait recorder can't be null.");
+        return this;
+    }
+
+    /**
+     * Runs the load, blocking until every issued request has completed.
+     *
+     * @return the load report.
+     */
+    public LoadReport run() {
+        int total = (int) Math.min(Integer.MAX_VALUE, Math.max(1, this.duration.toNanos() * this.qps / 1_000_000_000L));
+        long interval = 1_000_000_000L / this.qps;
+        Histogram latency = new Histogram();
+        AtomicLong failures = new AtomicLong();
+        AtomicLong rejections = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(total);
+        ExecutorService clients = this.async ? null : Executors.newFixedThreadPool(this.threads);
+        if (this.poolWait != null) {
+            this.poolWait.getAcquireNanos().reset();
+        }
+
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < total; i++) {
+                long scheduled = start + (long) i * interval;
+                long delay;
+                while ((delay = scheduled - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                Statement statement = this.statements.get();
+                if (this.async) {
+                    try {
+                        (this.query ? statement.executeQueryAsync(LoadRunner::drain) : statement.executeUpdateAsync())
+                                .whenComplete((result, e) -> this.completed(scheduled, e, latency, failures, rejections, done));
+                    } catch (LimitExceededException e) {
+                        this.completed(scheduled, e, latency, failures, rejections, done);
+                    }
+                } else {
+                    clients.execute(() -> {
+                        Throwable error = null;
+                        try {
+                            if (this.query) {
+                                statement.executeQuery(LoadRunner::drain);
+                            } else {
+                                statement.executeUpdate();
+                            }
+                        } catch (RuntimeException e) {
+                            error = e;
+                        }
+                        this.completed(scheduled, error, latency, failures, rejections, done);
+                    });
+                }
+            }
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (clients != null) {
+                clients.shutdownNow();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return new LoadReport(latency.getCount(), failures.get(), rejections.get(), elapsed, latency, this.poolWait == null ? null : this.poolWait.getAcquireNanos());
+    }
+
+    private void completed(long scheduled, Throwable error, Histogram latency, AtomicLong failures, AtomicLong rejections, CountDownLatch done) {
+        latency.record(System.nanoTime() - scheduled);
+        if (error instanceof LimitExceededException) {
+            rejections.incrementAndGet();
+        } else if (error != null) {
+            failures.incrementAndGet();
+        }
+        done.countDown();
+    }
+
+    private static void drain(QueryResult result) {
+        while (result.next()) {
+            // Rows are consumed without being read, like a caller discarding them
+        }
+    }
+
+    /**
+     * Creates a runner issuing updates.
+     *
+     * @param statements the supplier of a new statement per request.
+     * @return a new load runner instance.
+     */
+    public static LoadRunner updates(Supplier<Statement> statements) {
+        return new LoadRunner(Preconditions.checkNonNull(statements, "Statements can't be null."), false);
+    }
+
+    /**
+     * Creates a runner issuing queries, draining every returned row.
+     *
+     * @param statements the supplier of a new statement per request.
+     * @return a new load runner instance.
+     */
+    public static LoadRunner queries(Supplier<Statement> statements) {
+        return new LoadRunner(Preconditions.checkNonNull(statements, "Statements can't be null."), true);
+    }
+}
@@ -0,0 +1,35 @@
+package net.escosoft.mysqlwrapper.testing;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import lombok.Getter;
+import net.escosoft.mysqlwrapper.util.Histogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records how long statements wait to acquire a pool connection. Plug it in through
+ * {@code Database.metricsTrackerFactory(recorder)} and hand it to {@link LoadRunner#poolWait(PoolWaitRecorder)}.
+ */
+@Getter
+public final class PoolWaitRecorder implements MetricsTrackerFactory {
+
+    private final Histogram acquireNanos = new Histogram();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquireNanos.record(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.incrementAndGet();
+            }
+        };
+    }
+}
@@ -0,0 +1,115 @@
+package net.escosoft.mysqlwrapper.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative values with logarithmic buckets, each power of two split into
+ * 16 linear sub-buckets. Percentiles are reported as bucket upper bounds, within about 6% of the real value.
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value into the histogram. Negative values are recorded as 0.
+     *
+     * @param value the value to record.
+     */
+    public void record(long value) {
+        value = Math.max(value, 0);
+        this.counts.incrementAndGet(index(value));
+        this.count.incrementAndGet();
+        this.sum.addAndGet(value);
+        this.max.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount() {
+        return this.count.get();
+    }
+
+    public long getMax() {
+        return this.max.get();
+    }
+
+    public double getMean() {
+        long count = this.count.get();
+        return count == 0 ? 0 : (double) this.sum.get() / count;
+    }
+
+    /**
+     * Gets the value below which a percentage of the recorded values fall.
+     *
+     * @param percentile the percentile between 0 and 100.
+     * @return the percentile value, or 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        long count = this.count.get();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBound(i), this.max.get());
+            }
+        }
+        return this.max.get();
+    }
+
+    /**
+     * Copies the values recorded so far into a new histogram. Values recorded while copying may be
+     * partially included.
+     *
+     * @return the new histogram.
+     */
+    public Histogram copy() {
+        Histogram copy = new Histogram();
+        for (int i = 0; i < BUCKETS; i++) {
+            copy.counts.set(i, this.counts.get(i));
+        }
+        copy.count.set(this.count.get());
+        copy.sum.set(this.sum.get());
+        copy.max.set(this.max.get());
+        return copy;
+    }
+
+    /**
+     * Clears every recorded value.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts.set(i, 0);
+        }
+        this.count.set(0);
+        this.sum.set(0);
+        this.max.set(0);
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+        return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -8,6 +8,8 @@ import java.util.StringJoiner;
 @UtilityClass
 public final class StringUtil {
 
+    private final char[] HEX = "0123456789abcdef".toCharArray();
+
     /**
      * Build up a string out of a separator and a set of other string parts.
      *
@@ -22,4 +24,36 @@ public final class StringUtil {
         }
         return joiner.toString();
     }
+
+    /**
+     * Encodes a byte array as a lowercase hexadecimal string.
+     *
+     * @param bytes the bytes to encode.
+     * @return the hexadecimal string.
+     */
+    public String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Decodes a hexadecimal string into a byte array.
+     *
+     * @param hex the hexadecimal string.
+     * @return the decoded bytes.
+     */
+    public byte[] fromHex(String hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("Hexadecimal string must have an even length.");
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ((Character.digit(hex.charAt(i * 2), 16) << 4) | Character.digit(hex.charAt(i * 2 + 1), 16));
+        }
+        return bytes;
+    }
 }